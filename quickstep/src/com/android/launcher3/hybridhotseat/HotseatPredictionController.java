@@ -57,6 +57,7 @@ import com.android.launcher3.uioverrides.PredictedAppIcon;
 import com.android.launcher3.uioverrides.QuickstepLauncher;
 import com.android.launcher3.util.ItemInfoMatcher;
 import com.android.launcher3.util.OnboardingPrefs;
+import com.android.launcher3.util.ViewPool;
 import com.android.launcher3.views.Snackbar;
 
 import java.util.ArrayList;
@@ -82,6 +83,8 @@ public class HotseatPredictionController implements DragController.DragListener,
     private QuickstepLauncher mLauncher;
     private final Hotseat mHotseat;
     private final Runnable mUpdateFillIfNotLoading = this::updateFillIfNotLoading;
+    // Icons are inflated in the background, so that filling the hotseat only swaps views
+    private ViewPool<PredictedAppIcon> mIconPool;
 
     private List<ItemInfo> mPredictedItems = Collections.emptyList();
 
@@ -117,6 +120,7 @@ public class HotseatPredictionController implements DragController.DragListener,
         mLauncher = launcher;
         mHotseat = launcher.getHotseat();
         mHotSeatItemsCount = mLauncher.getDeviceProfile().numShownHotseatIcons;
+        mIconPool = createIconPool(mLauncher.getDeviceProfile());
         mLauncher.getDragController().addDragListener(this);
 
         launcher.addOnDeviceProfileChangeListener(this);
@@ -204,6 +208,7 @@ public class HotseatPredictionController implements DragController.DragListener,
                 // Remove predicted apps from the past
                 if (isPredictedIcon(child)) {
                     mHotseat.removeView(child);
+                    recycleIcon((PredictedAppIcon) child);
                 }
                 continue;
             }
@@ -230,7 +235,7 @@ public class HotseatPredictionController implements DragController.DragListener,
     private void bindItems(List<WorkspaceItemInfo> itemsToAdd, boolean animate) {
         AnimatorSet animationSet = new AnimatorSet();
         for (WorkspaceItemInfo item : itemsToAdd) {
-            PredictedAppIcon icon = PredictedAppIcon.createIcon(mHotseat, item);
+            PredictedAppIcon icon = PredictedAppIcon.createIcon(mIconPool, mHotseat, item);
             mLauncher.getWorkspace().addInScreenFromBind(icon, item);
             icon.finishBinding(mPredictionLongClickListener);
             if (animate) {
@@ -357,6 +362,7 @@ public class HotseatPredictionController implements DragController.DragListener,
                 continue;
             }
             if (dragObject.dragSource == this && icon.equals(dragObject.originalView)) {
+                // The view is still referenced by the drag, do not reuse it
                 removeIconWithoutNotify(icon);
                 continue;
             }
@@ -370,6 +376,7 @@ public class HotseatPredictionController implements DragController.DragListener,
                 public void onAnimationSuccess(Animator animator) {
                     if (icon.getParent() != null) {
                         removeIconWithoutNotify(icon);
+                        recycleIcon(icon);
                     }
                 }
             });
@@ -427,6 +434,23 @@ public class HotseatPredictionController implements DragController.DragListener,
     @Override
     public void onDeviceProfileChanged(DeviceProfile profile) {
         this.mHotSeatItemsCount = profile.numShownHotseatIcons;
+        // Icons compute their size and shape from the device profile when they are inflated
+        mIconPool = createIconPool(profile);
+    }
+
+    private ViewPool<PredictedAppIcon> createIconPool(DeviceProfile profile) {
+        return new ViewPool<>(mHotseat.getContext(), mHotseat, R.layout.predicted_app_icon,
+                profile.inv.numDatabaseHotseatIcons /* max size */,
+                profile.numShownHotseatIcons /* initial size */);
+    }
+
+    /**
+     * Returns the icon to the pool, unless it was inflated for a previous device profile
+     */
+    private void recycleIcon(PredictedAppIcon icon) {
+        if (icon.getDeviceProfile() == mLauncher.getDeviceProfile()) {
+            mIconPool.recycle(icon);
+        }
     }
 
     @Override
@@ -493,6 +517,9 @@ public class HotseatPredictionController implements DragController.DragListener,
         View child = mHotseat.getChildAt(cellX, cellY);
         if (child instanceof PredictedAppIcon) {
             removeIconWithoutNotify((PredictedAppIcon) child);
+            if (isPredictedIcon(child)) {
+                recycleIcon((PredictedAppIcon) child);
+            }
         }
     }
 
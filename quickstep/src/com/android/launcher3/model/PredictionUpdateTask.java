@@ -32,12 +32,15 @@ import com.android.launcher3.Utilities;
 import com.android.launcher3.model.BgDataModel.FixedContainerItems;
 import com.android.launcher3.model.QuickstepModelDelegate.PredictorState;
 import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
 
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Task to update model as a result of predicted apps update
@@ -61,17 +64,11 @@ public class PredictionUpdateTask extends BaseModelUpdateTask {
                 .putBoolean(LAST_PREDICTION_ENABLED_STATE, !mTargets.isEmpty()).apply();
 
         FixedContainerItems fci = mPredictorState.items;
-        Set<UserHandle> usersForChangedShortcuts = new HashSet<>(fci.items.stream()
-                .filter(info -> info.itemType == ITEM_TYPE_DEEP_SHORTCUT)
-                .map(info -> info.user)
-                .collect(Collectors.toSet()));
-        fci.items.clear();
-
+        List<WorkspaceItemInfo> newItems = new ArrayList<>(mTargets.size());
         for (AppTarget target : mTargets) {
             WorkspaceItemInfo itemInfo;
             ShortcutInfo si = target.getShortcutInfo();
             if (si != null) {
-                usersForChangedShortcuts.add(si.getUserHandle());
                 itemInfo = new WorkspaceItemInfo(si, context);
                 app.getIconCache().getShortcutIcon(itemInfo, si);
             } else {
@@ -106,14 +103,56 @@ public class PredictionUpdateTask extends BaseModelUpdateTask {
             }
 
             itemInfo.container = fci.containerId;
-            fci.items.add(itemInfo);
+            newItems.add(itemInfo);
         }
 
+        if (areItemsSame(fci.items, newItems)) {
+            // Different targets can still resolve to the same items, for eg when a target is
+            // not installed. Keep the bound items and avoid rewriting the same data on disk.
+            mPredictorState.onItemsUnchanged();
+            return;
+        }
+
+        Set<UserHandle> usersForChangedShortcuts = Stream.concat(fci.items.stream(),
+                newItems.stream())
+                .filter(info -> info.itemType == ITEM_TYPE_DEEP_SHORTCUT)
+                .map(info -> info.user)
+                .collect(Collectors.toSet());
+        fci.items.clear();
+        fci.items.addAll(newItems);
+
         bindExtraContainerItems(fci);
         usersForChangedShortcuts.forEach(
                 u -> dataModel.updateShortcutPinnedState(app.getContext(), u));
 
         // Save to disk
-        mPredictorState.storage.write(context, fci.items);
+        mPredictorState.persistItems(context);
+    }
+
+    /**
+     * Returns true if both the lists represent the same items in the same order
+     */
+    private static boolean areItemsSame(List<ItemInfo> oldItems, List<WorkspaceItemInfo> newItems) {
+        int size = oldItems.size();
+        if (size != newItems.size()) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            ItemInfo oldItem = oldItems.get(i);
+            WorkspaceItemInfo newItem = newItems.get(i);
+            if (oldItem.itemType != newItem.itemType
+                    || !Objects.equals(oldItem.user, newItem.user)
+                    || !Objects.equals(oldItem.getTargetComponent(),
+                            newItem.getTargetComponent())) {
+                return false;
+            }
+            if (newItem.itemType == ITEM_TYPE_DEEP_SHORTCUT
+                    && (!(oldItem instanceof WorkspaceItemInfo)
+                    || !Objects.equals(((WorkspaceItemInfo) oldItem).getDeepShortcutId(),
+                            newItem.getDeepShortcutId()))) {
+                return false;
+            }
+        }
+        return true;
     }
 }
@@ -16,6 +16,7 @@
 package com.android.launcher3.model;
 
 import static android.text.format.DateUtils.DAY_IN_MILLIS;
+import static android.text.format.DateUtils.SECOND_IN_MILLIS;
 import static android.text.format.DateUtils.formatElapsedTime;
 
 import static com.android.launcher3.LauncherSettings.Favorites.CONTAINER_HOTSEAT_PREDICTION;
@@ -44,6 +45,7 @@ import android.content.pm.LauncherActivityInfo;
 import android.content.pm.LauncherApps;
 import android.content.pm.ShortcutInfo;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.os.UserHandle;
 import android.util.Log;
 import android.util.StatsEvent;
@@ -68,6 +70,8 @@ import com.android.quickstep.logging.SettingsChangeLogger;
 import com.android.quickstep.logging.StatsLogCompatManager;
 import com.android.systemui.shared.system.SysUiStatsLog;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -116,6 +120,9 @@ public class QuickstepModelDelegate extends ModelDelegate {
     public void loadItems(UserManagerState ums, Map<ShortcutKey, ShortcutInfo> pinnedShortcuts) {
         // TODO: Implement caching and preloading
         super.loadItems(ums, pinnedShortcuts);
+        // Make sure that the latest predictions are read back
+        mAllAppsState.flushPendingPersist();
+        mHotseatState.flushPendingPersist();
 
         WorkspaceItemFactory allAppsFactory = new WorkspaceItemFactory(
                 mApp, ums, pinnedShortcuts, mIDP.numDatabaseAllAppsColumns);
@@ -255,6 +262,8 @@ public class QuickstepModelDelegate extends ModelDelegate {
     public void destroy() {
         super.destroy();
         mActive = false;
+        mAllAppsState.flushPendingPersist();
+        mHotseatState.flushPendingPersist();
         StatsLogCompatManager.LOGS_CONSUMER.remove(mAppEventProducer);
         if (mIsPrimaryInstance) {
             mStatsManager.clearPullAtomCallback(SysUiStatsLog.LAUNCHER_LAYOUT_SNAPSHOT);
@@ -268,6 +277,14 @@ public class QuickstepModelDelegate extends ModelDelegate {
         mWidgetsRecommendationState.destroyPredictor();
     }
 
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        writer.println(prefix + "QuickstepModelDelegate:");
+        mAllAppsState.dump(prefix + "  ", writer);
+        mHotseatState.dump(prefix + "  ", writer);
+    }
+
     @WorkerThread
     private void recreatePredictors() {
         destroyPredictors();
@@ -371,15 +388,31 @@ public class QuickstepModelDelegate extends ModelDelegate {
 
     static class PredictorState {
 
+        // Predictions can be updated after every app launch, limit how often they are written
+        private static final long MIN_PERSIST_INTERVAL_MS = 30 * SECOND_IN_MILLIS;
+
         public final FixedContainerItems items;
         public final PersistedItemArray<ItemInfo> storage;
         public AppPredictor predictor;
 
+        private final String mStorageName;
+        private final Runnable mPersistRunnable = this::persistNow;
+
         private List<AppTarget> mLastTargets;
 
+        private Context mPersistContext;
+        private boolean mPersistPending;
+        private long mLastPersistTime;
+
+        private int mSkippedTargetUpdates;
+        private int mSkippedItemUpdates;
+        private int mPersistCount;
+        private int mDeferredPersistCount;
+
         PredictorState(int container, String storageName) {
             items = new FixedContainerItems(container);
             storage = new PersistedItemArray<>(storageName);
+            mStorageName = storageName;
             mLastTargets = Collections.emptyList();
         }
 
@@ -398,8 +431,69 @@ public class QuickstepModelDelegate extends ModelDelegate {
             mLastTargets = newTargets;
 
             int size = oldTargets.size();
-            return size == newTargets.size() && IntStream.range(0, size)
+            boolean same = size == newTargets.size() && IntStream.range(0, size)
                     .allMatch(i -> areAppTargetsSame(oldTargets.get(i), newTargets.get(i)));
+            if (same) {
+                mSkippedTargetUpdates++;
+            }
+            return same;
+        }
+
+        /**
+         * Called when new targets resolved to the same items as the ones already bound
+         */
+        void onItemsUnchanged() {
+            mSkippedItemUpdates++;
+        }
+
+        /**
+         * Saves the current items on disk. Consecutive writes are at least
+         * {@link #MIN_PERSIST_INTERVAL_MS} apart, intermediate updates are coalesced into a
+         * single write of the latest items.
+         */
+        @WorkerThread
+        void persistItems(Context context) {
+            mPersistContext = context;
+            if (mPersistPending) {
+                // The pending write will pick up the latest items
+                mDeferredPersistCount++;
+                return;
+            }
+            long delay = mLastPersistTime + MIN_PERSIST_INTERVAL_MS - SystemClock.uptimeMillis();
+            if (mLastPersistTime == 0 || delay <= 0) {
+                persistNow();
+            } else {
+                mPersistPending = true;
+                mDeferredPersistCount++;
+                MODEL_EXECUTOR.getHandler().postDelayed(mPersistRunnable, delay);
+            }
+        }
+
+        /**
+         * Immediately writes any items which are waiting to be saved on disk
+         */
+        @WorkerThread
+        void flushPendingPersist() {
+            if (mPersistPending) {
+                MODEL_EXECUTOR.getHandler().removeCallbacks(mPersistRunnable);
+                persistNow();
+            }
+        }
+
+        private void persistNow() {
+            mPersistPending = false;
+            mLastPersistTime = SystemClock.uptimeMillis();
+            mPersistCount++;
+            storage.write(mPersistContext, items.items);
+        }
+
+        void dump(String prefix, PrintWriter writer) {
+            writer.println(prefix + mStorageName + ": items=" + items.items.size()
+                    + " skippedTargetUpdates=" + mSkippedTargetUpdates
+                    + " skippedItemUpdates=" + mSkippedItemUpdates
+                    + " writes=" + mPersistCount
+                    + " deferredWrites=" + mDeferredPersistCount
+                    + " writePending=" + mPersistPending);
         }
     }
 
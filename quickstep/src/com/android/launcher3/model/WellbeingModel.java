@@ -36,9 +36,12 @@ import android.os.DeadObjectException;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Process;
+import android.os.SystemClock;
 import android.os.UserHandle;
 import android.text.TextUtils;
+import android.text.format.DateUtils;
 import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.Log;
 
 import androidx.annotation.MainThread;
@@ -62,7 +65,9 @@ import com.android.launcher3.util.SimpleBroadcastReceiver;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Data model for digital wellbeing status of apps.
@@ -70,7 +75,15 @@ import java.util.Map;
 @TargetApi(Build.VERSION_CODES.Q)
 public final class WellbeingModel extends BgObjectWithLooper {
     private static final String TAG = "WellbeingModel";
-    private static final int[] RETRY_TIMES_MS = {5000, 15000, 30000};
+    // Failed updates are retried after 5s, 10s, 20s and 40s
+    private static final long RETRY_BASE_DELAY_MS = 5000;
+    private static final int MAX_RETRY_COUNT = 4;
+    // Package changes received within this delay are refreshed together
+    private static final long BATCH_DELAY_MS = 500;
+    // Maximum number of packages sent to the wellbeing provider in a single call
+    private static final int MAX_PACKAGES_PER_CALL = 50;
+    // Actions older than this are refreshed in the background when they are requested
+    private static final long ACTION_TTL_MS = DateUtils.HOUR_IN_MILLIS;
     private static final boolean DEBUG = false;
 
     private static final int UNKNOWN_MINIMAL_DEVICE_STATE = 0;
@@ -102,6 +115,15 @@ public final class WellbeingModel extends BgObjectWithLooper {
     // Maps the action Id to the corresponding RemoteAction
     private final Map<String, RemoteAction> mActionIdMap = new ArrayMap<>();
     private final Map<String, String> mPackageToActionId = new HashMap<>();
+    // Maps the package to the last time its actions were retrieved
+    private final Map<String, Long> mPackageUpdateTime = new HashMap<>();
+
+    // Packages waiting to be updated, only accessed on the worker thread
+    private final Set<String> mPendingPackages = new ArraySet<>();
+    private final Runnable mFlushPendingRunnable = this::flushPendingUpdates;
+    private boolean mPendingAllPackages;
+    private boolean mFlushScheduled;
+    private int mRetryCount;
 
     private boolean mIsInTest;
 
@@ -177,6 +199,10 @@ public final class WellbeingModel extends BgObjectWithLooper {
     private void restartObserver() {
         final ContentResolver resolver = mContext.getContentResolver();
         resolver.unregisterContentObserver(mContentObserver);
+        // The provider may have just become available, do not wait for a pending retry
+        mWorkerHandler.removeCallbacks(mFlushPendingRunnable);
+        mFlushScheduled = false;
+        mRetryCount = 0;
         Uri actionsUri = apiBuilder().path(PATH_ACTIONS).build();
         Uri minimalDeviceUri = apiBuilder().path(PATH_MINIMAL_DEVICE).build();
         try {
@@ -204,6 +230,12 @@ public final class WellbeingModel extends BgObjectWithLooper {
         }
 
         synchronized (mModelLock) {
+            Long updateTime = mPackageUpdateTime.get(packageName);
+            if (updateTime != null && mWorkerHandler != null
+                    && SystemClock.elapsedRealtime() - updateTime > ACTION_TTL_MS) {
+                // Keep using the current action until it is refreshed
+                mWorkerHandler.post(() -> scheduleUpdate(packageName));
+            }
             String actionId = mPackageToActionId.get(packageName);
             final RemoteAction action = actionId != null ? mActionIdMap.get(actionId) : null;
             if (action == null) {
@@ -254,7 +286,7 @@ public final class WellbeingModel extends BgObjectWithLooper {
     }
 
     @WorkerThread
-    private boolean updateActions(String[] packageNames) {
+    private boolean updateActions(@Nullable ContentProviderClient client, String[] packageNames) {
         if (packageNames.length == 0) {
             return true;
         }
@@ -264,21 +296,17 @@ public final class WellbeingModel extends BgObjectWithLooper {
         }
         Preconditions.assertNonUiThread();
 
-        Uri contentUri = apiBuilder().build();
-        final Bundle remoteActionBundle;
-        try (ContentProviderClient client = mContext.getContentResolver()
-                .acquireUnstableContentProviderClient(contentUri)) {
-            if (client == null) {
-                if (DEBUG || mIsInTest) Log.i(TAG, "retrieveActions(): null provider");
-                return false;
-            }
-
+        if (client == null) {
+            if (DEBUG || mIsInTest) Log.i(TAG, "retrieveActions(): null provider");
+            return false;
+        }
+        try {
             // Prepare wellbeing call parameters.
             final Bundle params = new Bundle();
             params.putStringArray(EXTRA_PACKAGES, packageNames);
             params.putInt(EXTRA_MAX_NUM_ACTIONS_SHOWN, 1);
             // Perform wellbeing call .
-            remoteActionBundle = client.call(METHOD_GET_ACTIONS, null, params);
+            final Bundle remoteActionBundle = client.call(METHOD_GET_ACTIONS, null, params);
             if (!remoteActionBundle.getBoolean(EXTRA_SUCCESS, true)) return false;
 
             synchronized (mModelLock) {
@@ -304,12 +332,19 @@ public final class WellbeingModel extends BgObjectWithLooper {
                         mPackageToActionId.put(packageName, actionId);
                     }
                 }
+
+                long now = SystemClock.elapsedRealtime();
+                for (String packageName : packageNames) {
+                    mPackageUpdateTime.put(packageName, now);
+                }
+                // Drop the actions which no longer apply to any package
+                mActionIdMap.keySet().retainAll(new HashSet<>(mPackageToActionId.values()));
             }
         } catch (DeadObjectException e) {
             Log.i(TAG, "retrieveActions(): DeadObjectException");
             return false;
         } catch (Exception e) {
-            Log.e(TAG, "Failed to retrieve data from " + contentUri + ": " + e);
+            Log.e(TAG, "Failed to retrieve data from " + apiBuilder().build() + ": " + e);
             if (mIsInTest) throw new RuntimeException(e);
             return true;
         }
@@ -317,40 +352,79 @@ public final class WellbeingModel extends BgObjectWithLooper {
         return true;
     }
 
+    /**
+     * Adds the package to the next batch of updates, or all the packages if it is null
+     */
     @WorkerThread
-    private void updateActionsWithRetry(int retryCount, @Nullable String packageName) {
-        if (DEBUG || mIsInTest) {
-            Log.i(TAG,
-                    "updateActionsWithRetry(); retryCount: " + retryCount + ", package: "
-                            + packageName);
+    private void scheduleUpdate(@Nullable String packageName) {
+        if (packageName == null) {
+            mPendingAllPackages = true;
+            mPendingPackages.clear();
+        } else if (!mPendingAllPackages) {
+            mPendingPackages.add(packageName);
+        }
+        if (!mFlushScheduled) {
+            mFlushScheduled = true;
+            mWorkerHandler.postDelayed(mFlushPendingRunnable, BATCH_DELAY_MS);
         }
-        String[] packageNames = TextUtils.isEmpty(packageName)
+    }
+
+    @WorkerThread
+    private void flushPendingUpdates() {
+        mFlushScheduled = false;
+        String[] packageNames = mPendingAllPackages
                 ? mContext.getSystemService(LauncherApps.class)
                 .getActivityList(null, Process.myUserHandle()).stream()
                 .map(li -> li.getApplicationInfo().packageName).distinct()
                 .toArray(String[]::new)
-                : new String[]{packageName};
+                : mPendingPackages.toArray(new String[0]);
+        mPendingAllPackages = false;
+        mPendingPackages.clear();
+        if (DEBUG || mIsInTest) {
+            Log.i(TAG, "flushPendingUpdates(); retryCount: " + mRetryCount + ", packages: "
+                    + packageNames.length);
+        }
 
-        mWorkerHandler.removeCallbacksAndMessages(packageName);
-        if (updateActions(packageNames)) {
+        int failedIndex = packageNames.length;
+        Uri contentUri = apiBuilder().build();
+        try (ContentProviderClient client = mContext.getContentResolver()
+                .acquireUnstableContentProviderClient(contentUri)) {
+            for (int start = 0; start < packageNames.length; start += MAX_PACKAGES_PER_CALL) {
+                String[] batch = Arrays.copyOfRange(packageNames, start,
+                        Math.min(start + MAX_PACKAGES_PER_CALL, packageNames.length));
+                if (!updateActions(client, batch)) {
+                    // The provider is not available, the next calls would fail as well
+                    failedIndex = start;
+                    break;
+                }
+            }
+        }
+
+        if (failedIndex == packageNames.length) {
+            mRetryCount = 0;
             return;
         }
-        if (retryCount >= RETRY_TIMES_MS.length) {
+        if (mRetryCount >= MAX_RETRY_COUNT) {
             // To many retries, skip
+            mRetryCount = 0;
             return;
         }
-        mWorkerHandler.postDelayed(
-                () -> {
-                    if (DEBUG || mIsInTest) Log.i(TAG, "Retrying; attempt " + (retryCount + 1));
-                    updateActionsWithRetry(retryCount + 1, packageName);
-                },
-                packageName, RETRY_TIMES_MS[retryCount]);
+        if (!mPendingAllPackages) {
+            mPendingPackages.addAll(
+                    Arrays.asList(packageNames).subList(failedIndex, packageNames.length));
+        }
+        long delay = RETRY_BASE_DELAY_MS << mRetryCount;
+        mRetryCount++;
+        if (DEBUG || mIsInTest) Log.i(TAG, "Retrying in " + delay + "ms; attempt " + mRetryCount);
+        mWorkerHandler.removeCallbacks(mFlushPendingRunnable);
+        mFlushScheduled = true;
+        mWorkerHandler.postDelayed(mFlushPendingRunnable, delay);
     }
 
     @WorkerThread
     private void updateAllPackages() {
         if (DEBUG || mIsInTest) Log.i(TAG, "updateAllPackages");
-        updateActionsWithRetry(0, null);
+        scheduleUpdate(null);
     }
 
     @WorkerThread
@@ -365,12 +439,13 @@ public final class WellbeingModel extends BgObjectWithLooper {
         }
         final String action = intent.getAction();
         if (Intent.ACTION_PACKAGE_REMOVED.equals(action)) {
-            mWorkerHandler.removeCallbacksAndMessages(packageName);
+            mPendingPackages.remove(packageName);
             synchronized (mModelLock) {
                 mPackageToActionId.remove(packageName);
+                mPackageUpdateTime.remove(packageName);
             }
         } else if (Intent.ACTION_PACKAGE_ADDED.equals(action)) {
-            updateActionsWithRetry(0, packageName);
+            scheduleUpdate(packageName);
         }
     }
 
@@ -106,18 +106,32 @@ public class DepthController implements StateHandler<LauncherState>,
                 }
             };
 
+    /**
+     * Applies all depth changes requested since the last frame in a single transaction, right
+     * before the frame is drawn so that it is merged with the rest of that frame.
+     */
+    private final ViewTreeObserver.OnPreDrawListener mApplyPendingDepthListener =
+            new ViewTreeObserver.OnPreDrawListener() {
+                @Override
+                public boolean onPreDraw() {
+                    clearPendingDepthUpdate();
+                    dispatchTransactionSurface(mDepth);
+                    return true;
+                }
+            };
+
     private final Consumer<Boolean> mCrossWindowBlurListener = new Consumer<Boolean>() {
         @Override
         public void accept(Boolean enabled) {
             mCrossWindowBlursEnabled = enabled;
-            dispatchTransactionSurface(mDepth);
+            scheduleDepthUpdate();
         }
     };
 
     private final Runnable mOpaquenessListener = new Runnable() {
         @Override
         public void run() {
-            dispatchTransactionSurface(mDepth);
+            scheduleDepthUpdate();
         }
     };
 
@@ -152,6 +166,18 @@ public class DepthController implements StateHandler<LauncherState>,
      */
     private boolean mInEarlyWakeUp;
 
+    // Observer on which mApplyPendingDepthListener is registered, while an update is pending
+    private ViewTreeObserver mPendingDepthObserver;
+    // Last values sent to the wallpaper and SurfaceFlinger, used to skip redundant updates
+    private float mLastWallpaperZoom = -1;
+    private int mLastAppliedBlur = -1;
+    private boolean mLastAppliedOpaque;
+
+    // Stats for dump
+    private int mDepthUpdatesRequested;
+    private int mDepthTransactionsApplied;
+    private int mDepthTransactionsSkipped;
+
     // Workaround for animating the depth when multiwindow mode changes.
     private boolean mIgnoreStateChangesDuringMultiWindowAnimation = false;
 
@@ -179,6 +205,7 @@ public class DepthController implements StateHandler<LauncherState>,
                     IBinder windowToken = mLauncher.getRootView().getWindowToken();
                     if (windowToken != null) {
                         mWallpaperManager.setWallpaperZoomOut(windowToken, mDepth);
+                        mLastWallpaperZoom = mDepth;
                     }
                     onAttached();
                 }
@@ -187,6 +214,8 @@ public class DepthController implements StateHandler<LauncherState>,
                 public void onViewDetachedFromWindow(View view) {
                     CrossWindowBlurListeners.getInstance().removeListener(mCrossWindowBlurListener);
                     mLauncher.getScrimView().removeOpaquenessListener(mOpaquenessListener);
+                    clearPendingDepthUpdate();
+                    mLastWallpaperZoom = -1;
                 }
             };
             mLauncher.getRootView().addOnAttachStateChangeListener(mOnAttachListener);
@@ -230,6 +259,8 @@ public class DepthController implements StateHandler<LauncherState>,
         }
         if (mSurface != surface) {
             mSurface = surface;
+            // The new surface does not have any of the previously applied values
+            mLastAppliedBlur = -1;
             if (surface != null) {
                 dispatchTransactionSurface(mDepth);
                 return true;
@@ -289,8 +320,8 @@ public class DepthController implements StateHandler<LauncherState>,
         if (Float.compare(mDepth, depthF) == 0) {
             return;
         }
-        dispatchTransactionSurface(depthF);
         mDepth = depthF;
+        scheduleDepthUpdate();
     }
 
     public void onOverlayScrollChanged(float progress) {
@@ -301,7 +332,38 @@ public class DepthController implements StateHandler<LauncherState>,
             return;
         }
         mOverlayScrollProgress = progressF;
-        dispatchTransactionSurface(mDepth);
+        scheduleDepthUpdate();
+    }
+
+    /**
+     * Schedules the current depth to be applied before the next frame is drawn. Multiple depth
+     * sources (state animations, -1 overlay scroll, scrim and blur listeners) updating within the
+     * same frame result in a single transaction.
+     */
+    private void scheduleDepthUpdate() {
+        mDepthUpdatesRequested++;
+        if (mPendingDepthObserver != null) {
+            return;
+        }
+        View view = mLauncher.getDragLayer();
+        if (view == null || !view.isAttachedToWindow()) {
+            // No frame is coming, apply immediately
+            dispatchTransactionSurface(mDepth);
+            return;
+        }
+        mPendingDepthObserver = view.getViewTreeObserver();
+        mPendingDepthObserver.addOnPreDrawListener(mApplyPendingDepthListener);
+        // Make sure a frame gets scheduled.
+        view.invalidate();
+    }
+
+    private void clearPendingDepthUpdate() {
+        if (mPendingDepthObserver != null) {
+            if (mPendingDepthObserver.isAlive()) {
+                mPendingDepthObserver.removeOnPreDrawListener(mApplyPendingDepthListener);
+            }
+            mPendingDepthObserver = null;
+        }
     }
 
     private boolean dispatchTransactionSurface(float depth) {
@@ -312,8 +374,9 @@ public class DepthController implements StateHandler<LauncherState>,
         ensureDependencies();
         depth = Math.max(depth, mOverlayScrollProgress);
         IBinder windowToken = mLauncher.getRootView().getWindowToken();
-        if (windowToken != null) {
+        if (windowToken != null && Float.compare(mLastWallpaperZoom, depth) != 0) {
             mWallpaperManager.setWallpaperZoomOut(windowToken, depth);
+            mLastWallpaperZoom = depth;
         }
 
         if (supportsBlur) {
@@ -322,13 +385,23 @@ public class DepthController implements StateHandler<LauncherState>,
 
             mCurrentBlur = !mCrossWindowBlursEnabled || mBlurDisabledForAppLaunch || hasOpaqueBg
                     ? 0 : (int) (depth * mMaxBlurRadius);
+            // Set early wake-up flags when we know we're executing an expensive operation, this way
+            // SurfaceFlinger will adjust its internal offsets to avoid jank.
+            boolean wantsEarlyWakeUp = depth > 0 && depth < 1;
+
+            // Depth changes which round to the same blur radius are not visible, skip them
+            if (mCurrentBlur == mLastAppliedBlur && isSurfaceOpaque == mLastAppliedOpaque
+                    && wantsEarlyWakeUp == mInEarlyWakeUp) {
+                mDepthTransactionsSkipped++;
+                return true;
+            }
+            mLastAppliedBlur = mCurrentBlur;
+            mLastAppliedOpaque = isSurfaceOpaque;
+
             SurfaceControl.Transaction transaction = new SurfaceControl.Transaction()
                     .setBackgroundBlurRadius(mSurface, mCurrentBlur)
                     .setOpaque(mSurface, isSurfaceOpaque);
 
-            // Set early wake-up flags when we know we're executing an expensive operation, this way
-            // SurfaceFlinger will adjust its internal offsets to avoid jank.
-            boolean wantsEarlyWakeUp = depth > 0 && depth < 1;
             if (wantsEarlyWakeUp && !mInEarlyWakeUp) {
                 transaction.setEarlyWakeupStart();
                 mInEarlyWakeUp = true;
@@ -340,7 +413,10 @@ public class DepthController implements StateHandler<LauncherState>,
             AttachedSurfaceControl rootSurfaceControl =
                     mLauncher.getRootView().getRootSurfaceControl();
             if (rootSurfaceControl != null) {
+                // Merged with the next frame of the launcher window, which also carries any
+                // surface params scheduled by SurfaceTransactionApplier for that frame.
                 rootSurfaceControl.applyTransactionOnDraw(transaction);
+                mDepthTransactionsApplied++;
             }
         }
         return true;
@@ -373,6 +449,9 @@ public class DepthController implements StateHandler<LauncherState>,
         writer.println(prefix + "\tmCurrentBlur=" + mCurrentBlur);
         writer.println(prefix + "\tmBlurDisabledForAppLaunch=" + mBlurDisabledForAppLaunch);
         writer.println(prefix + "\tmInEarlyWakeUp=" + mInEarlyWakeUp);
+        writer.println(prefix + "\tdepthUpdatesRequested=" + mDepthUpdatesRequested
+                + " transactionsApplied=" + mDepthTransactionsApplied
+                + " transactionsSkipped=" + mDepthTransactionsSkipped);
         writer.println(prefix + "\tmIgnoreStateChangesDuringMultiWindowAnimation="
                 + mIgnoreStateChangesDuringMultiWindowAnimation);
     }
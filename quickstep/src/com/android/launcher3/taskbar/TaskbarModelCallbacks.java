@@ -34,6 +34,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Launcher model Callbacks for rendering taskbar.
@@ -43,6 +44,9 @@ public class TaskbarModelCallbacks implements
 
     private final SparseArray<ItemInfo> mHotseatItems = new SparseArray<>();
     private List<ItemInfo> mPredictedItems = Collections.emptyList();
+    // Items added or modified since they were last committed to the UI. Other items which are
+    // already bound to a view are not rebound.
+    private final Set<ItemInfo> mModifiedItems = new HashSet<>();
 
     private final TaskbarActivityContext mContext;
     private final TaskbarView mContainer;
@@ -67,6 +71,7 @@ public class TaskbarModelCallbacks implements
         mBindInProgress = true;
         mHotseatItems.clear();
         mPredictedItems = Collections.emptyList();
+        mModifiedItems.clear();
     }
 
     @Override
@@ -97,6 +102,7 @@ public class TaskbarModelCallbacks implements
         for (ItemInfo item : items) {
             if (item.container == Favorites.CONTAINER_HOTSEAT) {
                 mHotseatItems.put(item.screenId, item);
+                mModifiedItems.add(item);
                 modified = true;
             }
         }
@@ -182,7 +188,8 @@ public class TaskbarModelCallbacks implements
                 isHotseatEmpty = false;
             }
         }
-        mContainer.updateHotseatItems(hotseatItemInfos);
+        mContainer.updateHotseatItems(hotseatItemInfos, mModifiedItems);
+        mModifiedItems.clear();
 
         final boolean finalIsHotseatEmpty = isHotseatEmpty;
         mControllers.runAfterInit(() -> {
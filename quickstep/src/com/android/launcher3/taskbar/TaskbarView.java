@@ -19,6 +19,7 @@ import android.content.Context;
 import android.content.res.Resources;
 import android.graphics.Canvas;
 import android.graphics.Rect;
+import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
@@ -36,8 +37,12 @@ import com.android.launcher3.model.data.FolderInfo;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
 import com.android.launcher3.uioverrides.ApiWrapper;
+import com.android.launcher3.util.ShortcutUtil;
 import com.android.launcher3.views.ActivityContext;
 
+import java.util.Objects;
+import java.util.Set;
+
 /**
  * Hosts the Taskbar content such as Hotseat and Recent Apps. Drawn on top of other apps.
  */
@@ -115,8 +120,11 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
 
     /**
      * Inflates/binds the Hotseat views to show in the Taskbar given their ItemInfos.
+     *
+     * @param modifiedItems items which were changed in place since the last update, and need
+     *                      to be rebound even if their view already shows them
      */
-    protected void updateHotseatItems(ItemInfo[] hotseatItemInfos) {
+    protected void updateHotseatItems(ItemInfo[] hotseatItemInfos, Set<ItemInfo> modifiedItems) {
         int nextViewIndex = 0;
         int numViewsAnimated = 0;
 
@@ -177,6 +185,16 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
                 BubbleTextView btv = (BubbleTextView) hotseatView;
                 WorkspaceItemInfo workspaceInfo = (WorkspaceItemInfo) hotseatItemInfo;
 
+                if (!modifiedItems.contains(workspaceInfo)
+                        && showsSameIcon(btv.getTag(), workspaceInfo)) {
+                    // Nothing visible changed, avoid rebinding and relayout of the icon
+                    if (btv.getTag() != workspaceInfo) {
+                        btv.setTag(workspaceInfo);
+                    }
+                    nextViewIndex++;
+                    continue;
+                }
+
                 boolean animate = btv.shouldAnimateIconChange((WorkspaceItemInfo) hotseatItemInfo);
                 btv.applyFromWorkspaceItem(workspaceInfo, animate, numViewsAnimated);
                 if (animate) {
@@ -192,6 +210,30 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
         }
     }
 
+    /**
+     * Returns true if a view bound to {@param oldTag} already shows the icon and label of
+     * {@param newInfo}, like for a prediction which was recreated with the same app.
+     */
+    private static boolean showsSameIcon(Object oldTag, WorkspaceItemInfo newInfo) {
+        if (oldTag == newInfo) {
+            return true;
+        }
+        if (!(oldTag instanceof WorkspaceItemInfo)) {
+            return false;
+        }
+        WorkspaceItemInfo oldInfo = (WorkspaceItemInfo) oldTag;
+        return oldInfo.itemType == newInfo.itemType
+                && oldInfo.bitmap == newInfo.bitmap
+                && oldInfo.runtimeStatusFlags == newInfo.runtimeStatusFlags
+                && oldInfo.status == newInfo.status
+                && Objects.equals(oldInfo.user, newInfo.user)
+                && Objects.equals(oldInfo.getTargetComponent(), newInfo.getTargetComponent())
+                && Objects.equals(ShortcutUtil.getShortcutIdIfPinnedShortcut(oldInfo),
+                        ShortcutUtil.getShortcutIdIfPinnedShortcut(newInfo))
+                && TextUtils.equals(oldInfo.title, newInfo.title)
+                && TextUtils.equals(oldInfo.contentDescription, newInfo.contentDescription);
+    }
+
     /**
      * Sets OnClickListener and OnLongClickListener for the given view.
      */
@@ -56,6 +56,8 @@ import com.android.launcher3.model.data.WorkspaceItemInfo;
 import com.android.launcher3.touch.ItemClickHandler;
 import com.android.launcher3.touch.ItemLongClickListener;
 import com.android.launcher3.util.SafeCloseable;
+import com.android.launcher3.util.ViewPool;
+import com.android.launcher3.util.ViewPool.Reusable;
 import com.android.launcher3.views.ActivityContext;
 import com.android.launcher3.views.DoubleShadowBubbleTextView;
 
@@ -66,7 +68,7 @@ import java.util.List;
 /**
  * A BubbleTextView with a ring around it's drawable
  */
-public class PredictedAppIcon extends DoubleShadowBubbleTextView {
+public class PredictedAppIcon extends DoubleShadowBubbleTextView implements Reusable {
 
     private static final int RING_SHADOW_COLOR = 0x99000000;
     private static final float RING_EFFECT_RATIO = 0.095f;
@@ -91,6 +93,7 @@ public class PredictedAppIcon extends DoubleShadowBubbleTextView {
     // Used for the "slot-machine" education animation.
     private List<Drawable> mSlotMachineIcons;
     private Animator mSlotMachineAnim;
+    private Animator mIconChangeAnim;
     private float mSlotMachineIconTranslationY;
 
     private static final FloatProperty<PredictedAppIcon> SLOT_MACHINE_TRANSLATION_Y =
@@ -204,6 +207,9 @@ public class PredictedAppIcon extends DoubleShadowBubbleTextView {
             }
             changeIconAnim.play(plateColorAnim);
             changeIconAnim.setStartDelay(staggerIndex * ICON_CHANGE_ANIM_STAGGER);
+            changeIconAnim.addListener(AnimatorListeners.forEndCallback(
+                    () -> mIconChangeAnim = null));
+            mIconChangeAnim = changeIconAnim;
             changeIconAnim.setDuration(ICON_CHANGE_ANIM_DURATION).start();
         }
     }
@@ -297,6 +303,13 @@ public class PredictedAppIcon extends DoubleShadowBubbleTextView {
         return mIsPinned;
     }
 
+    /**
+     * Returns the device profile used to size this icon when it was inflated
+     */
+    public DeviceProfile getDeviceProfile() {
+        return mDeviceProfile;
+    }
+
     private int getOutlineOffsetX() {
         return (getMeasuredWidth() - mNormalizedIconSize) / 2;
     }
@@ -382,14 +395,48 @@ public class PredictedAppIcon extends DoubleShadowBubbleTextView {
      * Creates and returns a new instance of PredictedAppIcon from WorkspaceItemInfo
      */
     public static PredictedAppIcon createIcon(ViewGroup parent, WorkspaceItemInfo info) {
-        PredictedAppIcon icon = (PredictedAppIcon) LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.predicted_app_icon, parent, false);
+        return setupIcon((PredictedAppIcon) LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.predicted_app_icon, parent, false), parent, info);
+    }
+
+    /**
+     * Returns a PredictedAppIcon from the pool, set up for the provided WorkspaceItemInfo
+     */
+    public static PredictedAppIcon createIcon(ViewPool<PredictedAppIcon> pool, ViewGroup parent,
+            WorkspaceItemInfo info) {
+        return setupIcon(pool.getView(), parent, info);
+    }
+
+    private static PredictedAppIcon setupIcon(PredictedAppIcon icon, ViewGroup parent,
+            WorkspaceItemInfo info) {
         icon.applyFromWorkspaceItem(info);
         icon.setOnClickListener(ItemClickHandler.INSTANCE);
         icon.setOnFocusChangeListener(Launcher.getLauncher(parent.getContext()).getFocusHandler());
         return icon;
     }
 
+    @Override
+    public void onRecycle() {
+        if (mIconChangeAnim != null) {
+            mIconChangeAnim.end();
+        }
+        if (mSlotMachineAnim != null) {
+            mSlotMachineAnim.end();
+        }
+        mSlotMachineIcons = null;
+        mSlotMachineIconTranslationY = 0;
+        mIsPinned = false;
+        mDrawForDrag = false;
+        mPlateColor = 0;
+        reset();
+        setScaleX(1);
+        setScaleY(1);
+        setVisibility(VISIBLE);
+        setEnabled(true);
+        setOnLongClickListener(null);
+        setTag(null);
+    }
+
     /**
      * Draws Predicted Icon outline on cell layout
      */
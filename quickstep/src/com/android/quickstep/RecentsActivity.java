@@ -200,7 +200,7 @@ public final class RecentsActivity extends StatefulActivity<RecentsState> {
         // In case we are reusing IDP, create a copy so that we don't conflict with Launcher
         // activity.
         return (mDragLayer != null) && isInMultiWindowMode()
-                ? dp.getMultiWindowProfile(this, getMultiWindowDisplaySize())
+                ? getMultiWindowProfile(dp)
                 : dp.copy(this);
     }
 
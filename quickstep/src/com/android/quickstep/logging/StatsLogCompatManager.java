@@ -30,6 +30,7 @@ import static com.android.systemui.shared.system.SysUiStatsLog.LAUNCHER_UICHANGE
 import static com.android.systemui.shared.system.SysUiStatsLog.LAUNCHER_UICHANGED__DST_STATE__OVERVIEW;
 
 import android.content.Context;
+import android.os.Process;
 import android.util.Log;
 import android.util.StatsEvent;
 import android.view.View;
@@ -51,17 +52,17 @@ import com.android.launcher3.logger.LauncherAtomExtensions.DeviceSearchResultCon
 import com.android.launcher3.logger.LauncherAtomExtensions.ExtendedContainers;
 import com.android.launcher3.logging.InstanceId;
 import com.android.launcher3.logging.StatsLogManager;
-import com.android.launcher3.model.AllAppsList;
-import com.android.launcher3.model.BaseModelUpdateTask;
-import com.android.launcher3.model.BgDataModel;
 import com.android.launcher3.model.data.FolderInfo;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.util.Executors;
 import com.android.launcher3.util.LogConfig;
+import com.android.launcher3.util.LooperExecutor;
 import com.android.launcher3.views.ActivityContext;
 import com.android.systemui.shared.system.InteractionJankMonitorWrapper;
 import com.android.systemui.shared.system.SysUiStatsLog;
 
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -88,6 +89,23 @@ public class StatsLogCompatManager extends StatsLogManager {
     private static final int SEARCH_RESULT_HIERARCHY_OFFSET = 200;
     private static final int EXTENDED_CONTAINERS_HIERARCHY_OFFSET = 300;
     private static final int ATTRIBUTE_MULTIPLIER = 100;
+    // Maximum number of events waiting to be written, oldest events are dropped beyond this.
+    private static final int MAX_PENDING_EVENTS = 256;
+
+    /**
+     * Executor used for building and writing the logs, so that logging does not compete with the
+     * loader and package updates on the model thread.
+     */
+    private static final LooperExecutor LOGGING_EXECUTOR = new LooperExecutor(
+            Executors.createAndStartNewLooper("launcher-statslog",
+                    Process.THREAD_PRIORITY_BACKGROUND));
+
+    // Events waiting to be written, in the order they were logged. Guarded by itself.
+    private static final ArrayDeque<PendingEvent> PENDING_EVENTS = new ArrayDeque<>();
+    private static boolean sDrainScheduled;
+    private static int sEventsLogged;
+    private static int sEventsBatched;
+    private static int sEventsDropped;
 
     public static final CopyOnWriteArrayList<StatsLogConsumer> LOGS_CONSUMER =
             new CopyOnWriteArrayList<>();
@@ -103,6 +121,58 @@ public class StatsLogCompatManager extends StatsLogManager {
         return new StatsCompatLogger(mContext, mActivityContext);
     }
 
+    private static void enqueueEvent(StatsCompatLogger logger, EventEnum event) {
+        synchronized (PENDING_EVENTS) {
+            if (PENDING_EVENTS.size() >= MAX_PENDING_EVENTS) {
+                PENDING_EVENTS.pollFirst();
+                sEventsDropped++;
+            }
+            PENDING_EVENTS.addLast(new PendingEvent(logger, event));
+            sEventsLogged++;
+            if (sDrainScheduled) {
+                return;
+            }
+            sDrainScheduled = true;
+        }
+        LOGGING_EXECUTOR.execute(StatsLogCompatManager::drainPendingEvents);
+    }
+
+    /**
+     * Writes all the pending events, building all the protos of the batch before writing them.
+     */
+    @WorkerThread
+    private static void drainPendingEvents() {
+        PendingEvent[] events;
+        synchronized (PENDING_EVENTS) {
+            events = PENDING_EVENTS.toArray(new PendingEvent[PENDING_EVENTS.size()]);
+            PENDING_EVENTS.clear();
+            sDrainScheduled = false;
+            if (events.length > 1) {
+                sEventsBatched += events.length;
+            }
+        }
+        LauncherAtom.ItemInfo[] atomInfos = new LauncherAtom.ItemInfo[events.length];
+        for (int i = 0; i < events.length; i++) {
+            atomInfos[i] = events[i].logger.buildAtomInfo();
+        }
+        for (int i = 0; i < events.length; i++) {
+            events[i].logger.write(events[i].event, atomInfos[i]);
+        }
+    }
+
+    /**
+     * Dumps the state of the logging queue
+     */
+    public static void dump(String prefix, PrintWriter writer) {
+        synchronized (PENDING_EVENTS) {
+            writer.println(prefix + "StatsLogCompatManager:");
+            writer.println(prefix + "\teventsLogged=" + sEventsLogged
+                    + " eventsBatched=" + sEventsBatched
+                    + " eventsDropped=" + sEventsDropped
+                    + " pending=" + PENDING_EVENTS.size());
+        }
+    }
+
     /**
      * Synchronously writes an itemInfo to stats log
      */
@@ -278,42 +348,34 @@ public class StatsLogCompatManager extends StatsLogManager {
             if (!Utilities.ATLEAST_R) {
                 return;
             }
-            LauncherAppState appState = LauncherAppState.getInstanceNoCreate();
 
             if (mSlice == null && mSliceItem != null) {
                 mSlice = LauncherAtom.Slice.newBuilder().setUri(
                         mSliceItem.getSlice().getUri().toString()).build();
             }
 
+            // All events go through a single ordered queue so that logs do not go out of order
+            // (for eg: drop comes after drag)
+            enqueueEvent(this, event);
+        }
+
+        @WorkerThread
+        private LauncherAtom.ItemInfo buildAtomInfo() {
             if (mSlice != null) {
-                Executors.MODEL_EXECUTOR.execute(
-                        () -> {
-                            LauncherAtom.ItemInfo.Builder itemInfoBuilder =
-                                    LauncherAtom.ItemInfo.newBuilder().setSlice(mSlice);
-                            mContainerInfo.ifPresent(itemInfoBuilder::setContainerInfo);
-                            write(event, applyOverwrites(itemInfoBuilder.build()));
-                        });
-                return;
+                LauncherAtom.ItemInfo.Builder itemInfoBuilder =
+                        LauncherAtom.ItemInfo.newBuilder().setSlice(mSlice);
+                mContainerInfo.ifPresent(itemInfoBuilder::setContainerInfo);
+                return applyOverwrites(itemInfoBuilder.build());
             }
 
+            LauncherAppState appState = LauncherAppState.getInstanceNoCreate();
             if (mItemInfo.container < 0 || appState == null) {
-                // Write log on the model thread so that logs do not go out of order
-                // (for eg: drop comes after drag)
-                Executors.MODEL_EXECUTOR.execute(
-                        () -> write(event, applyOverwrites(mItemInfo.buildProto())));
-            } else {
-                // Item is inside the folder, fetch folder info in a BG thread
-                // and then write to StatsLog.
-                appState.getModel().enqueueModelUpdateTask(
-                        new BaseModelUpdateTask() {
-                            @Override
-                            public void execute(LauncherAppState app, BgDataModel dataModel,
-                                    AllAppsList apps) {
-                                FolderInfo folderInfo = dataModel.folders.get(mItemInfo.container);
-                                write(event, applyOverwrites(mItemInfo.buildProto(folderInfo)));
-                            }
-                        });
+                return applyOverwrites(mItemInfo.buildProto());
             }
+            // Item is inside the folder, read the folder info from the model snapshot instead of
+            // waiting on the model thread.
+            FolderInfo folderInfo = appState.getModel().getFolderSnapshot(mItemInfo.container);
+            return applyOverwrites(mItemInfo.buildProto(folderInfo));
         }
 
         @Override
@@ -409,6 +471,17 @@ public class StatsLogCompatManager extends StatsLogManager {
         }
     }
 
+    private static class PendingEvent {
+
+        final StatsCompatLogger logger;
+        final EventEnum event;
+
+        PendingEvent(StatsCompatLogger logger, EventEnum event) {
+            this.logger = logger;
+            this.event = event;
+        }
+    }
+
     private static int getCardinality(LauncherAtom.ItemInfo info) {
         switch (info.getContainerInfo().getContainerCase()) {
             case PREDICTED_HOTSEAT_CONTAINER:
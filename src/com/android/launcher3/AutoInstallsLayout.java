@@ -17,19 +17,24 @@
 package com.android.launcher3;
 
 import android.appwidget.AppWidgetHost;
+import android.appwidget.AppWidgetManager;
 import android.content.ComponentName;
 import android.content.ContentValues;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.ActivityInfo;
 import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
 import android.content.res.Resources;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
 import android.os.Build.VERSION;
 import android.os.Bundle;
 import android.os.Process;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.AttributeSet;
@@ -40,14 +45,15 @@ import android.util.Xml;
 
 import androidx.annotation.Nullable;
 
-import com.android.launcher3.LauncherProvider.SqlArguments;
 import com.android.launcher3.LauncherSettings.Favorites;
 import com.android.launcher3.icons.GraphicsUtils;
 import com.android.launcher3.icons.LauncherIcons;
 import com.android.launcher3.model.data.LauncherAppWidgetInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
+import com.android.launcher3.provider.LauncherDbUtils.SQLiteTransaction;
 import com.android.launcher3.qsb.QsbContainerView;
 import com.android.launcher3.util.IntArray;
+import com.android.launcher3.util.IntSparseArrayMap;
 import com.android.launcher3.util.PackageManagerHelper;
 import com.android.launcher3.util.Thunk;
 
@@ -55,6 +61,9 @@ import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.function.Supplier;
 
@@ -174,7 +183,11 @@ public class AutoInstallsLayout {
     final ContentValues mValues;
     protected final String mRootTag;
 
-    protected SQLiteDatabase mDb;
+    // Rows added by the tag parsers, which are only written to the db once the whole layout has
+    // been parsed
+    private final IntSparseArrayMap<ContentValues> mPendingRows = new IntSparseArrayMap<>();
+    // Launcher activities of the user, resolved in a single query before parsing the layout
+    private final HashMap<ComponentName, ActivityInfo> mLauncherActivities = new HashMap<>();
 
     public AutoInstallsLayout(Context context, AppWidgetHost appWidgetHost,
             LayoutParserCallback callback, Resources res,
@@ -203,14 +216,117 @@ public class AutoInstallsLayout {
 
     /**
      * Loads the layout in the db and returns the number of entries added on the desktop.
+     *
+     * The whole layout is parsed before anything is written, and all the rows are then inserted
+     * in a single transaction, so that nothing is added if the layout is invalid.
      */
     public int loadLayout(SQLiteDatabase db, IntArray screenIds) {
-        mDb = db;
+        mPendingRows.clear();
         try {
-            return parseLayout(mInitialLayoutSupplier.get(), screenIds);
+            long start = SystemClock.uptimeMillis();
+            resolveLauncherActivities();
+            long resolved = SystemClock.uptimeMillis();
+            int count = parseLayout(mInitialLayoutSupplier.get(), screenIds);
+            long parsed = SystemClock.uptimeMillis();
+            int rowCount = insertPendingRows(db);
+            if (LOGD) {
+                Log.d(TAG, "Loaded layout with " + rowCount + " rows in "
+                        + (SystemClock.uptimeMillis() - start) + "ms: resolve="
+                        + (resolved - start) + "ms, parse=" + (parsed - resolved)
+                        + "ms, insert=" + (SystemClock.uptimeMillis() - parsed) + "ms");
+            }
+            return count;
         } catch (Exception e) {
             Log.e(TAG, "Error parsing layout: ", e);
+            deletePendingWidgetIds();
             return -1;
+        } finally {
+            mPendingRows.clear();
+            mLauncherActivities.clear();
+        }
+    }
+
+    /**
+     * Queries all the launcher activities at once, instead of looking up every app shortcut of
+     * the layout individually.
+     */
+    private void resolveLauncherActivities() {
+        mLauncherActivities.clear();
+        List<ResolveInfo> activities = mPackageManager.queryIntentActivities(
+                new Intent(Intent.ACTION_MAIN).addCategory(Intent.CATEGORY_LAUNCHER), 0);
+        for (ResolveInfo ri : activities) {
+            ActivityInfo info = ri.activityInfo;
+            mLauncherActivities.put(new ComponentName(info.packageName, info.name), info);
+        }
+    }
+
+    /**
+     * Returns the info of the provided activity, or throws if it does not exist.
+     */
+    private ActivityInfo getActivityInfo(ComponentName cn)
+            throws PackageManager.NameNotFoundException {
+        ActivityInfo info = mLauncherActivities.get(cn);
+        return info != null ? info : mPackageManager.getActivityInfo(cn, 0);
+    }
+
+    /**
+     * Adds a row to be inserted once the layout has been parsed.
+     * @return the id of the row
+     */
+    protected int insertAndCheck(ContentValues values) {
+        Integer id = values.getAsInteger(Favorites._ID);
+        if (id == null) {
+            throw new RuntimeException("Error: attempting to add item without specifying an id");
+        }
+        mPendingRows.put(id, new ContentValues(values));
+        return id;
+    }
+
+    /**
+     * Frees the widget ids bound while parsing, when the rows using them could not be added
+     */
+    private void deletePendingWidgetIds() {
+        for (ContentValues values : mPendingRows) {
+            Integer appWidgetId = values.getAsInteger(Favorites.APPWIDGET_ID);
+            if (appWidgetId != null && appWidgetId != AppWidgetManager.INVALID_APPWIDGET_ID) {
+                mAppWidgetHost.deleteAppWidgetId(appWidgetId);
+            }
+        }
+    }
+
+    /**
+     * Inserts all the pending rows in a single transaction, reusing a compiled statement for all
+     * the rows with the same columns.
+     * @return the number of rows inserted
+     */
+    private int insertPendingRows(SQLiteDatabase db) {
+        ArrayMap<String, SQLiteStatement> statements = new ArrayMap<>();
+        try (SQLiteTransaction t = new SQLiteTransaction(db)) {
+            for (ContentValues values : mPendingRows) {
+                String[] columns = values.keySet().toArray(new String[values.size()]);
+                Arrays.sort(columns);
+                String columnList = TextUtils.join(",", columns);
+                SQLiteStatement statement = statements.get(columnList);
+                if (statement == null) {
+                    String[] params = new String[columns.length];
+                    Arrays.fill(params, "?");
+                    statement = db.compileStatement("INSERT INTO " + Favorites.TABLE_NAME
+                            + " (" + columnList + ") VALUES (" + TextUtils.join(",", params)
+                            + ")");
+                    statements.put(columnList, statement);
+                }
+                statement.clearBindings();
+                for (int i = 0; i < columns.length; i++) {
+                    DatabaseUtils.bindObjectToProgram(statement, i + 1, values.get(columns[i]));
+                }
+                statement.executeInsert();
+            }
+            t.commit();
+            return mPendingRows.size();
+        } finally {
+            for (int i = statements.size() - 1; i >= 0; i--) {
+                statements.valueAt(i).close();
+            }
         }
     }
 
@@ -305,11 +421,7 @@ public class AutoInstallsLayout {
         mValues.put(Favorites.SPANX, 1);
         mValues.put(Favorites.SPANY, 1);
         mValues.put(Favorites._ID, id);
-        if (mCallback.insertAndCheck(mDb, mValues) < 0) {
-            return -1;
-        } else {
-            return id;
-        }
+        return insertAndCheck(mValues);
     }
 
     protected ArrayMap<String, TagParser> getFolderElementsMap() {
@@ -356,12 +468,12 @@ public class AutoInstallsLayout {
                     ComponentName cn;
                     try {
                         cn = new ComponentName(packageName, className);
-                        info = mPackageManager.getActivityInfo(cn, 0);
+                        info = getActivityInfo(cn);
                     } catch (PackageManager.NameNotFoundException nnfe) {
                         String[] packages = mPackageManager.currentToCanonicalPackageNames(
                                 new String[]{packageName});
                         cn = new ComponentName(packages[0], className);
-                        info = mPackageManager.getActivityInfo(cn, 0);
+                        info = getActivityInfo(cn);
                     }
                     final Intent intent = new Intent(Intent.ACTION_MAIN, null)
                             .addCategory(Intent.CATEGORY_LAUNCHER)
@@ -541,12 +653,7 @@ public class AutoInstallsLayout {
                 mValues.put(Favorites.INTENT, new Intent().putExtras(extras).toUri(0));
             }
 
-            int insertedId = mCallback.insertAndCheck(mDb, mValues);
-            if (insertedId < 0) {
-                return -1;
-            } else {
-                return insertedId;
-            }
+            return insertAndCheck(mValues);
         }
     }
 
@@ -595,11 +702,7 @@ public class AutoInstallsLayout {
             mValues.put(Favorites.SPANX, 1);
             mValues.put(Favorites.SPANY, 1);
             mValues.put(Favorites._ID, mCallback.generateNewItemId());
-            int folderId = mCallback.insertAndCheck(mDb, mValues);
-            if (folderId < 0) {
-                if (LOGD) Log.e(TAG, "Unable to add folder");
-                return -1;
-            }
+            int folderId = insertAndCheck(mValues);
 
             final ContentValues myValues = new ContentValues(mValues);
             IntArray folderItems = new IntArray();
@@ -634,24 +737,19 @@ public class AutoInstallsLayout {
             // folder and clean up if less than 2 items were included, or some
             // failed to add, and less than 2 were actually added
             if (folderItems.size() < 2) {
-                // Delete the folder
-                Uri uri = Favorites.getContentUri(folderId);
-                SqlArguments args = new SqlArguments(uri, null, null);
-                mDb.delete(args.table, args.where, args.args);
+                // Remove the folder, it has not been written to the db yet
+                mPendingRows.remove(folderId);
                 addedId = -1;
 
                 // If we have a single item, promote it to where the folder
                 // would have been.
                 if (folderItems.size() == 1) {
-                    final ContentValues childValues = new ContentValues();
+                    addedId = folderItems.get(0);
+                    final ContentValues childValues = mPendingRows.get(addedId);
                     copyInteger(myValues, childValues, Favorites.CONTAINER);
                     copyInteger(myValues, childValues, Favorites.SCREEN);
                     copyInteger(myValues, childValues, Favorites.CELLX);
                     copyInteger(myValues, childValues, Favorites.CELLY);
-
-                    addedId = folderItems.get(0);
-                    mDb.update(Favorites.TABLE_NAME, childValues,
-                            Favorites._ID + "=" + addedId, null);
                 }
             }
             return addedId;
@@ -715,8 +813,6 @@ public class AutoInstallsLayout {
 
     public interface LayoutParserCallback {
         int generateNewItemId();
-
-        int insertAndCheck(SQLiteDatabase db, ContentValues values);
     }
 
     @Thunk
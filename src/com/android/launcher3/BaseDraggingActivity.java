@@ -37,6 +37,7 @@ import android.os.Bundle;
 import android.os.Process;
 import android.os.StrictMode;
 import android.os.UserHandle;
+import android.util.ArrayMap;
 import android.util.Log;
 import android.view.ActionMode;
 import android.view.Display;
@@ -77,6 +78,8 @@ public abstract class BaseDraggingActivity extends BaseActivity
 
     private static final String TAG = "BaseDraggingActivity";
 
+    private static final int MAX_MULTI_WINDOW_PROFILES = 4;
+
     // When starting an action mode, setting this tag will cause the action mode to be cancelled
     // automatically when user interacts with the launcher.
     public static final Object AUTO_CANCEL_ACTION_MODE = new Object();
@@ -89,6 +92,9 @@ public abstract class BaseDraggingActivity extends BaseActivity
 
     private int mThemeRes = R.style.AppTheme;
 
+    private DeviceProfile mMultiWindowBaseProfile;
+    private final ArrayMap<WindowBounds, DeviceProfile> mMultiWindowProfiles = new ArrayMap<>();
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -316,6 +322,29 @@ public abstract class BaseDraggingActivity extends BaseActivity
 
     protected abstract void reapplyUi();
 
+    /**
+     * Returns the multi-window profile derived from {@param baseProfile} for the current window
+     * size. Profiles are cached per window size, so that switching between a few window sizes does
+     * not redo all the layout computations each time. The cache is reset when the base profile
+     * changes, ie, when the grid or the display density changes.
+     */
+    protected DeviceProfile getMultiWindowProfile(DeviceProfile baseProfile) {
+        if (mMultiWindowBaseProfile != baseProfile) {
+            mMultiWindowBaseProfile = baseProfile;
+            mMultiWindowProfiles.clear();
+        }
+        WindowBounds windowBounds = getMultiWindowDisplaySize();
+        DeviceProfile profile = mMultiWindowProfiles.get(windowBounds);
+        if (profile == null) {
+            if (mMultiWindowProfiles.size() >= MAX_MULTI_WINDOW_PROFILES) {
+                mMultiWindowProfiles.clear();
+            }
+            profile = baseProfile.getMultiWindowProfile(this, windowBounds);
+            mMultiWindowProfiles.put(windowBounds, profile);
+        }
+        return profile;
+    }
+
     protected WindowBounds getMultiWindowDisplaySize() {
         if (Utilities.ATLEAST_R) {
             WindowMetrics wm = getWindowManager().getCurrentWindowMetrics();
@@ -71,6 +71,7 @@ import com.android.launcher3.model.data.ItemInfoWithIcon;
 import com.android.launcher3.model.data.PackageItemInfo;
 import com.android.launcher3.model.data.SearchActionItemInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
+import com.android.launcher3.touch.ItemLongClickListener;
 import com.android.launcher3.util.SafeCloseable;
 import com.android.launcher3.views.ActivityContext;
 import com.android.launcher3.views.BubbleTextHolder;
@@ -368,6 +369,15 @@ public class BubbleTextView extends TextView implements ItemInfoUpdateReceiver,
         setDownloadStateContentDescription(info, info.getProgressLevel());
     }
 
+    @Override
+    public void setTag(Object tag) {
+        super.setTag(tag);
+        if (getParent() instanceof ShortcutAndWidgetContainer) {
+            // Keep the package index of the parent up to date when the icon is bound again
+            ((ShortcutAndWidgetContainer) getParent()).onChildTagChanged(this);
+        }
+    }
+
     private void setItemInfo(ItemInfoWithIcon itemInfo) {
         setTag(itemInfo);
         if (mBubbleTextHolder != null) {
@@ -447,6 +457,9 @@ public class BubbleTextView extends TextView implements ItemInfoUpdateReceiver,
             return false;
         }
         if (isLongClickable()) {
+            if (event.getAction() == MotionEvent.ACTION_DOWN) {
+                ItemLongClickListener.prefetchPopupData(this);
+            }
             super.onTouchEvent(event);
             mLongPressHelper.onTouchEvent(event);
             // Keep receiving the rest of the events
@@ -312,11 +312,7 @@ public class DefaultLayoutParser extends AutoInstallsLayout {
                 mValues.put(Favorites.APPWIDGET_ID, appWidgetId);
                 mValues.put(Favorites.APPWIDGET_PROVIDER, cn.flattenToString());
                 mValues.put(Favorites._ID, mCallback.generateNewItemId());
-                insertedId = mCallback.insertAndCheck(mDb, mValues);
-                if (insertedId < 0) {
-                    mAppWidgetHost.deleteAppWidgetId(appWidgetId);
-                    return insertedId;
-                }
+                insertedId = insertAndCheck(mValues);
 
                 // Send a broadcast to configure the widget
                 if (!extras.isEmpty()) {
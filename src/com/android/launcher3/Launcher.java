@@ -103,7 +103,6 @@ import android.util.SparseArray;
 import android.view.KeyEvent;
 import android.view.KeyboardShortcutGroup;
 import android.view.KeyboardShortcutInfo;
-import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MotionEvent;
 import android.view.View;
@@ -139,6 +138,7 @@ import com.android.launcher3.dragndrop.DragView;
 import com.android.launcher3.dragndrop.LauncherDragController;
 import com.android.launcher3.folder.FolderGridOrganizer;
 import com.android.launcher3.folder.FolderIcon;
+import com.android.launcher3.folder.PreviewItemManager;
 import com.android.launcher3.icons.BitmapRenderer;
 import com.android.launcher3.icons.IconCache;
 import com.android.launcher3.keyboard.ViewGroupFocusHelper;
@@ -163,6 +163,7 @@ import com.android.launcher3.pm.UserCache;
 import com.android.launcher3.popup.ArrowPopup;
 import com.android.launcher3.popup.PopupContainerWithArrow;
 import com.android.launcher3.popup.PopupDataProvider;
+import com.android.launcher3.popup.PopupShortcutCache;
 import com.android.launcher3.popup.SystemShortcut;
 import com.android.launcher3.qsb.QsbContainerView;
 import com.android.launcher3.statemanager.StateManager;
@@ -225,7 +226,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.function.Predicate;
+import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -291,6 +292,10 @@ public class Launcher extends StatefulActivity<LauncherState> implements Launche
     private static final int NEW_APPS_ANIMATION_INACTIVE_TIMEOUT_SECONDS = 5;
     @Thunk @VisibleForTesting public static final int NEW_APPS_ANIMATION_DELAY = 500;
 
+    // Layouts inflated in the background before the first bind. These are inflated on a non
+    // looper thread, so they must not create a Handler (or an Alarm) during inflation.
+    @VisibleForTesting public static final int[] PREWARMED_LAYOUTS = {R.layout.app_icon};
+
     private static final int THEME_CROSS_FADE_ANIMATION_DURATION = 375;
 
     private static final String DISPLAY_WORKSPACE_TRACE_METHOD_NAME = "DisplayWorkspaceFirstFrame";
@@ -458,6 +463,11 @@ public class Launcher extends StatefulActivity<LauncherState> implements Launche
         InvariantDeviceProfile idp = app.getInvariantDeviceProfile();
         initDeviceProfile(idp);
         idp.addOnChangeListener(this);
+        if (!mModel.isModelLoaded()) {
+            // The first bind will be asynchronous, start inflating its views while the rest of
+            // the activity is created. A synchronous bind would run before they are ready.
+            prewarmViewCache();
+        }
         mSharedPrefs = Utilities.getPrefs(this);
         mIconCache = app.getIconCache();
         mAccessibilityDelegate = createAccessibilityDelegate();
@@ -640,10 +650,11 @@ public class Launcher extends StatefulActivity<LauncherState> implements Launche
         // Load configuration-specific DeviceProfile
         mDeviceProfile = idp.getDeviceProfile(this);
         if (isInMultiWindowMode()) {
-            mDeviceProfile = mDeviceProfile.getMultiWindowProfile(
-                    this, getMultiWindowDisplaySize());
+            mDeviceProfile = getMultiWindowProfile(mDeviceProfile);
         }
 
+        // Prewarmed views were created for the previous profile
+        getViewCache().clearPrewarmed();
         onDeviceProfileInitiated();
         mModelWriter = mModel.getWriter(getDeviceProfile().isVerticalBarLayout(), true, this);
     }
@@ -1261,6 +1272,18 @@ public class Launcher extends StatefulActivity<LauncherState> implements Launche
         mAllAppsController.setupViews(mScrimView, mAppsView);
     }
 
+    /**
+     * Starts inflating roughly one page worth of workspace and hotseat views in the background,
+     * so that the first bind can reuse them instead of inflating on the main thread.
+     */
+    private void prewarmViewCache() {
+        InvariantDeviceProfile idp = mDeviceProfile.inv;
+        int count = idp.numRows * idp.numColumns + idp.numDatabaseHotseatIcons;
+        for (int layoutId : PREWARMED_LAYOUTS) {
+            getViewCache().prewarm(this, layoutId, count);
+        }
+    }
+
     /**
      * Creates a view representing a shortcut.
      *
@@ -1278,8 +1301,8 @@ public class Launcher extends StatefulActivity<LauncherState> implements Launche
      * @return A View inflated from layoutResId.
      */
     public View createShortcut(ViewGroup parent, WorkspaceItemInfo info) {
-        BubbleTextView favorite = (BubbleTextView) LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.app_icon, parent, false);
+        BubbleTextView favorite = getViewCache().getView(
+                R.layout.app_icon, parent.getContext(), parent);
         favorite.applyFromWorkspaceItem(info);
         favorite.setOnClickListener(ItemClickHandler.INSTANCE);
         favorite.setOnFocusChangeListener(mFocusHandler);
@@ -1445,7 +1468,7 @@ public class Launcher extends StatefulActivity<LauncherState> implements Launche
         }
     };
 
-    private void updateNotificationDots(Predicate<PackageUserKey> updatedDots) {
+    private void updateNotificationDots(Set<PackageUserKey> updatedDots) {
         mWorkspace.updateNotificationDots(updatedDots);
         mAppsView.getAppsStore().updateNotificationDots(updatedDots);
     }
@@ -2709,6 +2732,7 @@ public class Launcher extends StatefulActivity<LauncherState> implements Launche
         getViewCache().setCacheSize(R.layout.folder_application,
                 mDeviceProfile.inv.numFolderColumns * mDeviceProfile.inv.numFolderRows);
         getViewCache().setCacheSize(R.layout.folder_page, 2);
+        getViewCache().clearPrewarmed();
 
         TraceHelper.INSTANCE.endSection(traceToken);
     }
@@ -2937,9 +2961,16 @@ public class Launcher extends StatefulActivity<LauncherState> implements Launche
 
         // Extra logging for general debugging
         mDragLayer.dump(prefix, writer);
+        mWorkspace.dumpScrollStats(prefix, writer);
         mStateManager.dump(prefix, writer);
         mPopupDataProvider.dump(prefix, writer);
         mDeviceProfile.dump(prefix, writer);
+        getViewCache().dump(prefix, writer);
+        PreviewItemManager.dump(prefix, writer);
+        PopupShortcutCache shortcutCache = PopupShortcutCache.INSTANCE.getNoCreate();
+        if (shortcutCache != null) {
+            shortcutCache.dump(prefix, writer);
+        }
 
         try {
             FileLog.flushAll(writer);
@@ -54,11 +54,13 @@ import com.android.launcher3.model.PackageUpdatedTask;
 import com.android.launcher3.model.ShortcutsChangedTask;
 import com.android.launcher3.model.UserLockStateChangedTask;
 import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.model.data.FolderInfo;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
 import com.android.launcher3.pm.InstallSessionTracker;
 import com.android.launcher3.pm.PackageInstallInfo;
 import com.android.launcher3.pm.UserCache;
+import com.android.launcher3.popup.PopupShortcutCache;
 import com.android.launcher3.shortcuts.ShortcutRequest;
 import com.android.launcher3.testing.TestProtocol;
 import com.android.launcher3.util.IntSet;
@@ -73,6 +75,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -98,6 +101,9 @@ public class LauncherModel extends LauncherApps.Callback implements InstallSessi
     // need to do a requery. This is only ever touched from the loader thread.
     private boolean mModelLoaded;
     private boolean mModelDestroyed = false;
+
+    // Incremented whenever the model or the underlying db may have changed
+    private final AtomicInteger mModelVersion = new AtomicInteger();
     public boolean isModelLoaded() {
         synchronized (mLock) {
             return mModelLoaded && mLoaderTask == null && !mModelDestroyed;
@@ -292,6 +298,12 @@ public class LauncherModel extends LauncherApps.Callback implements InstallSessi
      * not be called as DB updates are automatically followed by UI update
      */
     public void forceReload() {
+        incrementModelVersion();
+        // Reloads follow icon shape, theme and user changes, which also affect popup shortcuts
+        PopupShortcutCache shortcutCache = PopupShortcutCache.INSTANCE.getNoCreate();
+        if (shortcutCache != null) {
+            shortcutCache.clear();
+        }
         synchronized (mLock) {
             // Stop any existing loaders first, so they don't set mModelLoaded to true later
             stopLoader();
@@ -571,10 +583,35 @@ public class LauncherModel extends LauncherApps.Callback implements InstallSessi
         if (mModelDestroyed) {
             return;
         }
+        incrementModelVersion();
         task.init(mApp, this, mBgDataModel, mBgAllAppsList, MAIN_EXECUTOR);
         MODEL_EXECUTOR.execute(task);
     }
 
+    /**
+     * Returns a counter which changes every time the model or the favorites db may have changed.
+     * This can be used to invalidate any data derived from the model.
+     */
+    public int getModelVersion() {
+        return mModelVersion.get();
+    }
+
+    /**
+     * Returns the folder with the provided id from a snapshot of the model, without going through
+     * the model thread. Can be called from any thread.
+     */
+    @Nullable
+    public FolderInfo getFolderSnapshot(int folderId) {
+        return mBgDataModel.getFoldersSnapshot().get(folderId);
+    }
+
+    /**
+     * Marks any data derived from the current model as stale
+     */
+    public void incrementModelVersion() {
+        mModelVersion.incrementAndGet();
+    }
+
     /**
      * A task to be executed on the current callbacks on the UI thread.
      * If there is no current callbacks, the task is ignored.
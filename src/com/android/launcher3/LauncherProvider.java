@@ -97,7 +97,7 @@ public class LauncherProvider extends ContentProvider {
      * Represents the schema of the database. Changes in scheme need not be backwards compatible.
      * When increasing the scheme version, ensure that downgrade_schema.json is updated
      */
-    public static final int SCHEMA_VERSION = 30;
+    public static final int SCHEMA_VERSION = 31;
 
     public static final String AUTHORITY = BuildConfig.APPLICATION_ID + ".settings";
     public static final String KEY_LAYOUT_PROVIDER_AUTHORITY = "KEY_LAYOUT_PROVIDER_AUTHORITY";
@@ -201,11 +201,14 @@ public class LauncherProvider extends ContentProvider {
     }
 
     private void reloadLauncherIfExternal() {
+        LauncherAppState app = LauncherAppState.getInstanceNoCreate();
+        if (app == null) {
+            return;
+        }
         if (Binder.getCallingPid() != Process.myPid()) {
-            LauncherAppState app = LauncherAppState.getInstanceNoCreate();
-            if (app != null) {
-                app.getModel().forceReload();
-            }
+            app.getModel().forceReload();
+        } else {
+            app.getModel().incrementModelVersion();
         }
     }
 
@@ -864,6 +867,10 @@ public class LauncherProvider extends ContentProvider {
                             Favorites.SCREEN, IntArray.wrap(-777, -778)), null);
                 }
                 case 30: {
+                    // Add indexes for the common queries
+                    Favorites.addIndexesToDb(db);
+                }
+                case 31: {
                     // DB Upgraded successfully
                     return;
                 }
@@ -1030,11 +1037,6 @@ public class LauncherProvider extends ContentProvider {
             return new LauncherAppWidgetHost(mContext);
         }
 
-        @Override
-        public int insertAndCheck(SQLiteDatabase db, ContentValues values) {
-            return dbInsertAndCheck(this, db, Favorites.TABLE_NAME, null, values);
-        }
-
         public void checkId(ContentValues values) {
             int id = values.getAsInteger(Favorites._ID);
             mMaxItemId = Math.max(id, mMaxItemId);
@@ -1054,7 +1056,7 @@ public class LauncherProvider extends ContentProvider {
         }
 
         @Thunk int loadFavorites(SQLiteDatabase db, AutoInstallsLayout loader) {
-            // TODO: Use multiple loaders with fall-back and transaction.
+            // TODO: Use multiple loaders with fall-back.
             int count = loader.loadLayout(db, new IntArray());
 
             // Ensure that the max ids are initialized
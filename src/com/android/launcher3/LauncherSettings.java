@@ -323,6 +323,17 @@ public class LauncherSettings {
          */
         public static final String APPWIDGET_SOURCE = "appWidgetSource";
 
+        /**
+         * Index used to look up items by container, for eg folder contents, the hotseat or the
+         * items of a workspace screen.
+         */
+        public static final String INDEX_CONTAINER_SCREEN = "favorites_container_screen";
+
+        /**
+         * Index used to look up items by profile id, for eg during backup & restore.
+         */
+        public static final String INDEX_PROFILE_ID = "favorites_profile_id";
+
         public static void addTableToDb(SQLiteDatabase db, long myProfileId, boolean optional) {
             addTableToDb(db, myProfileId, optional, TABLE_NAME);
         }
@@ -353,6 +364,23 @@ public class LauncherSettings {
                     "options INTEGER NOT NULL DEFAULT 0," +
                     APPWIDGET_SOURCE + " INTEGER NOT NULL DEFAULT " + CONTAINER_UNKNOWN +
                     ");");
+            if (TABLE_NAME.equals(tableName)) {
+                addIndexesToDb(db);
+            }
+        }
+
+        /**
+         * Creates the indexes of the favorites table, replacing any existing ones.
+         */
+        public static void addIndexesToDb(SQLiteDatabase db) {
+            // Indexes keep their name when a table is renamed, so they could belong to a renamed
+            // copy of the favorites table.
+            db.execSQL("DROP INDEX IF EXISTS " + INDEX_CONTAINER_SCREEN);
+            db.execSQL("DROP INDEX IF EXISTS " + INDEX_PROFILE_ID);
+            db.execSQL("CREATE INDEX " + INDEX_CONTAINER_SCREEN + " ON " + TABLE_NAME
+                    + " (" + CONTAINER + ", " + SCREEN + ");");
+            db.execSQL("CREATE INDEX " + INDEX_PROFILE_ID + " ON " + TABLE_NAME
+                    + " (" + PROFILE_ID + ");");
         }
     }
 
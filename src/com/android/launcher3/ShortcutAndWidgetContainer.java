@@ -25,15 +25,24 @@ import android.app.WallpaperManager;
 import android.content.Context;
 import android.graphics.Point;
 import android.graphics.Rect;
+import android.util.ArrayMap;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 
 import com.android.launcher3.CellLayout.ContainerType;
 import com.android.launcher3.folder.FolderIcon;
+import com.android.launcher3.model.data.ItemInfo;
+import com.android.launcher3.util.LauncherBindableItemsContainer.ItemOperator;
+import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.views.ActivityContext;
 import com.android.launcher3.widget.NavigableAppWidgetHostView;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
 public class ShortcutAndWidgetContainer extends ViewGroup implements FolderIcon.FolderIconParent {
     static final String TAG = "ShortcutAndWidgetContainer";
 
@@ -57,6 +66,13 @@ public class ShortcutAndWidgetContainer extends ViewGroup implements FolderIcon.
     private final ActivityContext mActivity;
     private boolean mInvertIfRtl = false;
 
+    // Index of the children by their package, so that package specific updates like notification
+    // dots only visit the affected children. Children without a package, like folders, are kept
+    // in mUnkeyedChildren and are visited for every update.
+    private final HashMap<PackageUserKey, ArrayList<View>> mChildrenByPackage = new HashMap<>();
+    private final ArrayMap<View, PackageUserKey> mChildKeys = new ArrayMap<>();
+    private final ArrayList<View> mUnkeyedChildren = new ArrayList<>();
+
     public ShortcutAndWidgetContainer(Context context, @ContainerType int containerType) {
         super(context);
         mActivity = ActivityContext.lookupContext(context);
@@ -210,6 +226,102 @@ public class ShortcutAndWidgetContainer extends ViewGroup implements FolderIcon.
     }
 
 
+    @Override
+    public void onViewAdded(View child) {
+        super.onViewAdded(child);
+        indexChild(child);
+    }
+
+    @Override
+    public void onViewRemoved(View child) {
+        super.onViewRemoved(child);
+        removeChildFromIndex(child);
+    }
+
+    /**
+     * Updates the package index after the tag of an attached child changed, for example when a
+     * predicted icon is bound to a different app.
+     */
+    public void onChildTagChanged(View child) {
+        if (child.getParent() == this) {
+            removeChildFromIndex(child);
+            indexChild(child);
+        }
+    }
+
+    private void indexChild(View child) {
+        Object tag = child.getTag();
+        PackageUserKey key = tag instanceof ItemInfo && !(child instanceof FolderIcon)
+                ? PackageUserKey.fromItemInfo((ItemInfo) tag) : null;
+        if (key == null) {
+            mUnkeyedChildren.add(child);
+            return;
+        }
+        mChildKeys.put(child, key);
+        ArrayList<View> children = mChildrenByPackage.get(key);
+        if (children == null) {
+            children = new ArrayList<>(1);
+            mChildrenByPackage.put(key, children);
+        }
+        children.add(child);
+    }
+
+    private void removeChildFromIndex(View child) {
+        PackageUserKey key = mChildKeys.remove(child);
+        if (key == null) {
+            mUnkeyedChildren.remove(child);
+            return;
+        }
+        ArrayList<View> children = mChildrenByPackage.get(key);
+        if (children != null) {
+            children.remove(child);
+            if (children.isEmpty()) {
+                mChildrenByPackage.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Maps the operator over the children which were bound to any of the {@param packages}, and
+     * all the children which are not associated with a single package, like folders.
+     * @return the child for which the operator returned true, or null
+     */
+    public View mapOverItemsForPackages(Set<PackageUserKey> packages, ItemOperator op) {
+        if (packages.size() < mChildrenByPackage.size()) {
+            for (PackageUserKey key : packages) {
+                View result = mapOverChildren(mChildrenByPackage.get(key), op);
+                if (result != null) {
+                    return result;
+                }
+            }
+        } else {
+            for (Map.Entry<PackageUserKey, ArrayList<View>> entry
+                    : mChildrenByPackage.entrySet()) {
+                if (packages.contains(entry.getKey())) {
+                    View result = mapOverChildren(entry.getValue(), op);
+                    if (result != null) {
+                        return result;
+                    }
+                }
+            }
+        }
+        return mapOverChildren(mUnkeyedChildren, op);
+    }
+
+    private static View mapOverChildren(ArrayList<View> children, ItemOperator op) {
+        if (children == null) {
+            return null;
+        }
+        for (int i = 0; i < children.size(); i++) {
+            View child = children.get(i);
+            if (child.getTag() instanceof ItemInfo
+                    && op.evaluate((ItemInfo) child.getTag(), child)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
     @Override
     public boolean onInterceptTouchEvent(MotionEvent ev) {
         if (ev.getAction() == ACTION_DOWN && getAlpha() == 0) {
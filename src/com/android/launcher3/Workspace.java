@@ -121,10 +121,12 @@ import com.android.launcher3.widget.dragndrop.AppWidgetHostViewDragListener;
 import com.android.launcher3.widget.util.WidgetSizes;
 import com.android.systemui.plugins.shared.LauncherOverlayManager.LauncherOverlay;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -210,6 +212,11 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
 
     private boolean mWorkspaceFadeInAdjacentScreens;
 
+    // Time spent updating the pages on scroll frames, for instrumentation
+    private int mScrollFrameCount;
+    private long mScrollFrameTotalNanos;
+    private long mScrollFrameMaxNanos;
+
     final WallpaperOffsetInterpolator mWallpaperOffset;
     private boolean mUnlockWallpaperFromDefaultPageOnLayout;
 
@@ -1173,13 +1180,18 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
                 && mLauncher.getStateManager().getCurrentStableState() != HINT_STATE;
         boolean isTransitioning = isSwitchingState
                 || (getLayoutTransition() != null && getLayoutTransition().isRunning());
+        long startTime = System.nanoTime();
         if (!isTransitioning) {
             showPageIndicatorAtCurrentScroll();
         }
 
-        updatePageAlphaValues();
-        updatePageScrollValues();
+        updatePageValues(true /* updateAlpha */, true /* updateScrollProgress */);
         enableHwLayersOnVisiblePages();
+
+        long frameNanos = System.nanoTime() - startTime;
+        mScrollFrameCount++;
+        mScrollFrameTotalNanos += frameNanos;
+        mScrollFrameMaxNanos = Math.max(mScrollFrameMaxNanos, frameNanos);
     }
 
     public void showPageIndicatorAtCurrentScroll() {
@@ -1368,39 +1380,60 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
     }
 
     private void updatePageAlphaValues() {
-        // We need to check the isDragging case because updatePageAlphaValues is called between
-        // goToState(SPRING_LOADED) and onStartStateTransition.
-        if (!workspaceInModalState() && !mIsSwitchingState && !mDragController.isDragging()) {
-            int screenCenter = getScrollX() + getMeasuredWidth() / 2;
-            for (int i = 0; i < getChildCount(); i++) {
-                CellLayout child = (CellLayout) getChildAt(i);
-                if (child != null) {
-                    float scrollProgress = getScrollProgress(screenCenter, child, i);
-                    float alpha = 1 - Math.abs(scrollProgress);
-                    if (mWorkspaceFadeInAdjacentScreens) {
-                        child.getShortcutsAndWidgets().setAlpha(alpha);
-                    } else {
-                        // Pages that are off-screen aren't important for accessibility.
-                        child.getShortcutsAndWidgets().setImportantForAccessibility(
-                                alpha > 0 ? IMPORTANT_FOR_ACCESSIBILITY_AUTO
-                                        : IMPORTANT_FOR_ACCESSIBILITY_NO_HIDE_DESCENDANTS);
-                    }
-                }
-            }
-        }
+        updatePageValues(true /* updateAlpha */, false /* updateScrollProgress */);
     }
 
     private void updatePageScrollValues() {
+        updatePageValues(false /* updateAlpha */, true /* updateScrollProgress */);
+    }
+
+    /**
+     * Updates the scroll dependent properties of all the pages in a single pass, so that the
+     * scroll progress of each page is only computed once per frame.
+     */
+    private void updatePageValues(boolean updateAlpha, boolean updateScrollProgress) {
+        // We need to check the isDragging case because updatePageAlphaValues is called between
+        // goToState(SPRING_LOADED) and onStartStateTransition.
+        updateAlpha &= !workspaceInModalState() && !mIsSwitchingState
+                && !mDragController.isDragging();
+        if (!updateAlpha && !updateScrollProgress) {
+            return;
+        }
         int screenCenter = getScrollX() + getMeasuredWidth() / 2;
         for (int i = 0; i < getChildCount(); i++) {
             CellLayout child = (CellLayout) getChildAt(i);
-            if (child != null) {
-                float scrollProgress = getScrollProgress(screenCenter, child, i);
+            if (child == null) {
+                continue;
+            }
+            float scrollProgress = getScrollProgress(screenCenter, child, i);
+            if (updateAlpha) {
+                float alpha = 1 - Math.abs(scrollProgress);
+                if (mWorkspaceFadeInAdjacentScreens) {
+                    child.getShortcutsAndWidgets().setAlpha(alpha);
+                } else {
+                    // Pages that are off-screen aren't important for accessibility.
+                    child.getShortcutsAndWidgets().setImportantForAccessibility(
+                            alpha > 0 ? IMPORTANT_FOR_ACCESSIBILITY_AUTO
+                                    : IMPORTANT_FOR_ACCESSIBILITY_NO_HIDE_DESCENDANTS);
+                }
+            }
+            if (updateScrollProgress) {
                 child.setScrollProgress(scrollProgress);
             }
         }
     }
 
+    /**
+     * Dumps the time spent updating the pages on each scroll frame
+     */
+    public void dumpScrollStats(String prefix, PrintWriter writer) {
+        writer.println(prefix + "Workspace scroll frames: count=" + mScrollFrameCount
+                + " avgUs=" + (mScrollFrameCount == 0
+                        ? 0 : mScrollFrameTotalNanos / mScrollFrameCount / 1000)
+                + " maxUs=" + mScrollFrameMaxNanos / 1000);
+        mWallpaperOffset.dump(prefix, writer);
+    }
+
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
         mWallpaperOffset.setWindowToken(getWindowToken());
@@ -3246,10 +3279,10 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
         return null;
     }
 
-    public void updateNotificationDots(Predicate<PackageUserKey> updatedDots) {
+    public void updateNotificationDots(Set<PackageUserKey> updatedDots) {
         final PackageUserKey packageUserKey = new PackageUserKey(null, null);
         Predicate<ItemInfo> matcher = info -> !packageUserKey.updateFromItemInfo(info)
-                || updatedDots.test(packageUserKey);
+                || updatedDots.contains(packageUserKey);
 
         ItemOperator op = (info, v) -> {
             if (info instanceof WorkspaceItemInfo && v instanceof BubbleTextView) {
@@ -3271,7 +3304,12 @@ public class Workspace extends PagedView<WorkspacePageIndicator>
             return false;
         };
 
-        mapOverItems(op);
+        // Only visit the icons bound to the updated packages, along with the folders
+        for (CellLayout layout : getWorkspaceAndHotseatCellLayouts()) {
+            if (layout != null) {
+                layout.getShortcutsAndWidgets().mapOverItemsForPackages(updatedDots, op);
+            }
+        }
         Folder folder = Folder.getOpen(mLauncher);
         if (folder != null) {
             folder.iterateOverItems(op);
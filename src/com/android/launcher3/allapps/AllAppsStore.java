@@ -33,9 +33,9 @@ import com.android.launcher3.util.PackageUserKey;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
 
 /**
  * A utility class to maintain the collection of all apps.
@@ -141,11 +141,11 @@ public class AllAppsStore {
         mIconContainers.remove(container);
     }
 
-    public void updateNotificationDots(Predicate<PackageUserKey> updatedDots) {
+    public void updateNotificationDots(Set<PackageUserKey> updatedDots) {
         updateAllIcons((child) -> {
             if (child.getTag() instanceof ItemInfo) {
                 ItemInfo info = (ItemInfo) child.getTag();
-                if (mTempKey.updateFromItemInfo(info) && updatedDots.test(mTempKey)) {
+                if (mTempKey.updateFromItemInfo(info) && updatedDots.contains(mTempKey)) {
                     child.applyDotState(info, true /* animate */);
                 }
             }
@@ -32,6 +32,7 @@ import android.content.Context;
 import com.android.launcher3.Utilities;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.BiConsumer;
@@ -68,6 +69,13 @@ public class AnimatorPlaybackController implements ValueAnimator.AnimatorUpdateL
     private final AnimatorSet mAnim;
     private final Holder[] mChildAnimations;
 
+    // Flattened copy of the child timeline, so that the per-frame update does not need to
+    // dereference each holder for the common case.
+    private final float[] mChildEndProgress;
+    // Last fraction applied to each child, used to skip redundant updates for children which
+    // have already reached their end or have not moved since the previous frame.
+    private final float[] mLastChildFractions;
+
     protected float mCurrentFraction;
     private Runnable mEndAction;
 
@@ -101,6 +109,12 @@ public class AnimatorPlaybackController implements ValueAnimator.AnimatorUpdateL
         });
 
         mChildAnimations = childAnims.toArray(new Holder[childAnims.size()]);
+        mChildEndProgress = new float[mChildAnimations.length];
+        mLastChildFractions = new float[mChildAnimations.length];
+        for (int i = 0; i < mChildAnimations.length; i++) {
+            mChildEndProgress[i] = mChildAnimations[i].globalEndProgress;
+        }
+        invalidateChildFractions();
     }
 
     public AnimatorSet getTarget() {
@@ -156,8 +170,10 @@ public class AnimatorPlaybackController implements ValueAnimator.AnimatorUpdateL
                 : SpringProperty.FLAG_CAN_SPRING_ON_START;
 
         long springDuration = animationDuration;
-        for (Holder h : mChildAnimations) {
+        for (int i = 0; i < mChildAnimations.length; i++) {
+            Holder h = mChildAnimations[i];
             if ((h.springProperty.flags & springFlag) != 0) {
+                mLastChildFractions[i] = Float.NaN;
                 SpringAnimationBuilder s = new SpringAnimationBuilder(context)
                         .setStartValue(mCurrentFraction)
                         .setEndValue(goingToEnd ? 1 : 0)
@@ -222,6 +238,7 @@ public class AnimatorPlaybackController implements ValueAnimator.AnimatorUpdateL
         for (Holder h : mChildAnimations) {
             h.reset();
         }
+        invalidateChildFractions();
         mAnimationPlayer.cancel();
     }
 
@@ -243,11 +260,26 @@ public class AnimatorPlaybackController implements ValueAnimator.AnimatorUpdateL
             return;
         }
         float progress = boundToRange(fraction, 0, 1);
-        for (Holder holder : mChildAnimations) {
-            holder.setProgress(progress);
+        for (int i = 0; i < mChildAnimations.length; i++) {
+            Holder holder = mChildAnimations[i];
+            float endProgress = mChildEndProgress[i];
+            float childFraction = holder.mapper == ProgressMapper.DEFAULT
+                    ? (progress > endProgress ? 1 : (progress / endProgress))
+                    : holder.mapper.getProgress(progress, endProgress);
+            if (childFraction != mLastChildFractions[i]) {
+                mLastChildFractions[i] = childFraction;
+                holder.anim.setCurrentFraction(childFraction);
+            }
         }
     }
 
+    /**
+     * Forces all the child animations to be updated on the next call to {@link #setPlayFraction}
+     */
+    private void invalidateChildFractions() {
+        Arrays.fill(mLastChildFractions, Float.NaN);
+    }
+
     public float getProgressFraction() {
         return mCurrentFraction;
     }
@@ -279,6 +311,7 @@ public class AnimatorPlaybackController implements ValueAnimator.AnimatorUpdateL
     }
 
     public AnimatorPlaybackController dispatchOnStart() {
+        invalidateChildFractions();
         callListenerCommandRecursively(mAnim, AnimatorListener::onAnimationStart);
         return this;
     }
@@ -294,6 +327,7 @@ public class AnimatorPlaybackController implements ValueAnimator.AnimatorUpdateL
     }
 
     public void dispatchSetInterpolator(TimeInterpolator interpolator) {
+        invalidateChildFractions();
         callAnimatorCommandRecursively(mAnim, a -> a.setInterpolator(interpolator));
     }
 
@@ -382,10 +416,6 @@ public class AnimatorPlaybackController implements ValueAnimator.AnimatorUpdateL
             this.mapper = ProgressMapper.DEFAULT;
         }
 
-        public void setProgress(float progress) {
-            anim.setCurrentFraction(mapper.getProgress(progress, globalEndProgress));
-        }
-
         public void reset() {
             anim.setInterpolator(interpolator);
             mapper = ProgressMapper.DEFAULT;
@@ -1430,22 +1430,7 @@ public class Folder extends AbstractFloatingView implements ClipPathView, DragSo
     }
 
     public List<BubbleTextView> getItemsOnPage(int page) {
-        ArrayList<View> allItems = getIconsInReadingOrder();
-        int lastPage = mContent.getPageCount() - 1;
-        int totalItemsInFolder = allItems.size();
-        int itemsPerPage = mContent.itemsPerPage();
-        int numItemsOnCurrentPage = page == lastPage
-                ? totalItemsInFolder - (itemsPerPage * page)
-                : itemsPerPage;
-
-        int startIndex = page * itemsPerPage;
-        int endIndex = Math.min(startIndex + numItemsOnCurrentPage, allItems.size());
-
-        List<BubbleTextView> itemsOnCurrentPage = new ArrayList<>(numItemsOnCurrentPage);
-        for (int i = startIndex; i < endIndex; ++i) {
-            itemsOnCurrentPage.add((BubbleTextView) allItems.get(i));
-        }
-        return itemsOnCurrentPage;
+        return mContent.getItemsOnPage(page);
     }
 
     @Override
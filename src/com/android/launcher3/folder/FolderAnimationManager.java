@@ -320,7 +320,7 @@ public class FolderAnimationManager {
      */
     private List<BubbleTextView> getPreviewIconsOnPage(int page) {
         return mPreviewVerifier.setFolderInfo(mFolder.mInfo)
-                .previewItemsForPage(page, mFolder.getIconsInReadingOrder());
+                .previewItemsOnPage(page, mFolder.getItemsOnPage(page));
     }
 
     /**
@@ -154,14 +154,23 @@ public class FolderGridOrganizer {
      * Returns the preview items for the provided pageNo using the full list of contents
      */
     public <T, R extends T> ArrayList<R> previewItemsForPage(int page, List<T> contents) {
-        ArrayList<R> result = new ArrayList<>();
         int itemsPerPage = mCountX * mCountY;
         int start = itemsPerPage * page;
         int end = Math.min(start + itemsPerPage, contents.size());
+        return start < end
+                ? previewItemsOnPage(page, contents.subList(start, end)) : new ArrayList<>();
+    }
+
+    /**
+     * Returns the preview items on {@param page}, given only the items on that page.
+     */
+    public <T, R extends T> ArrayList<R> previewItemsOnPage(int page, List<T> pageContents) {
+        ArrayList<R> result = new ArrayList<>();
+        int end = Math.min(mCountX * mCountY, pageContents.size());
 
-        for (int i = start, rank = 0; i < end; i++, rank++) {
+        for (int rank = 0; rank < end; rank++) {
             if (isItemInPreview(page, rank)) {
-                result.add((R) contents.get(i));
+                result.add((R) pageContents.get(rank));
             }
 
             if (result.size() == MAX_NUM_ITEMS_IN_PREVIEW) {
@@ -33,7 +33,6 @@ import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
 import android.util.Property;
-import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewDebug;
@@ -192,8 +191,7 @@ public class FolderIcon extends FrameLayout implements FolderListener, IconLabel
         }
 
         DeviceProfile grid = activity.getDeviceProfile();
-        FolderIcon icon = (FolderIcon) LayoutInflater.from(group.getContext())
-                .inflate(resId, group, false);
+        FolderIcon icon = activity.getViewCache().getView(resId, group.getContext(), group);
 
         icon.setClipToPadding(false);
         icon.mFolderName = icon.findViewById(R.id.folder_icon_name);
@@ -668,6 +666,14 @@ public class FolderIcon extends FrameLayout implements FolderListener, IconLabel
         return mPreviewItemManager.verifyDrawable(who) || super.verifyDrawable(who);
     }
 
+    @Override
+    public void invalidateDrawable(@NonNull Drawable drawable) {
+        if (mPreviewItemManager.verifyDrawable(drawable)) {
+            mPreviewItemManager.invalidatePreviewCache();
+        }
+        super.invalidateDrawable(drawable);
+    }
+
     @Override
     public void onItemsChanged(boolean animate) {
         updatePreviewItems(animate);
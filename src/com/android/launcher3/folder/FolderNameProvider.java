@@ -36,7 +36,9 @@ import com.android.launcher3.util.ResourceBasedOverride;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -58,6 +60,10 @@ public class FolderNameProvider implements ResourceBasedOverride {
     protected IntSparseArrayMap<FolderInfo> mFolderInfos;
     protected List<AppInfo> mAppInfos;
 
+    // Index of mAppInfos by package name, built on the worker thread along with the app list
+    private final Map<String, AppInfo> mAppInfosByPackage = new HashMap<>();
+    private List<AppInfo> mIndexedAppInfos;
+
     /**
      * Retrieve instance of this object that can be overridden in runtime based on the build
      * variant of the application.
@@ -89,6 +95,20 @@ public class FolderNameProvider implements ResourceBasedOverride {
     private void load(List<AppInfo> appInfos, IntSparseArrayMap<FolderInfo> folderInfos) {
         mAppInfos = appInfos;
         mFolderInfos = folderInfos;
+        buildAppInfoIndex();
+    }
+
+    private void buildAppInfoIndex() {
+        mAppInfosByPackage.clear();
+        mIndexedAppInfos = mAppInfos;
+        if (mAppInfos == null) {
+            return;
+        }
+        for (AppInfo info : mAppInfos) {
+            if (info.componentName != null) {
+                mAppInfosByPackage.putIfAbsent(info.componentName.getPackageName(), info);
+            }
+        }
     }
 
     /**
@@ -132,10 +152,11 @@ public class FolderNameProvider implements ResourceBasedOverride {
         if (mAppInfos == null || mAppInfos.isEmpty()) {
             return Optional.empty();
         }
-        return mAppInfos.stream()
-                .filter(info -> info.componentName != null)
-                .filter(info -> info.componentName.getPackageName().equals(packageName))
-                .findAny();
+        if (mIndexedAppInfos != mAppInfos) {
+            // mAppInfos was replaced without going through load
+            buildAppInfoIndex();
+        }
+        return Optional.ofNullable(mAppInfosByPackage.get(packageName));
     }
 
     private void setAsFirstSuggestion(FolderNameInfos nameInfos, CharSequence label) {
@@ -176,6 +197,7 @@ public class FolderNameProvider implements ResourceBasedOverride {
         public void execute(LauncherAppState app, BgDataModel dataModel, AllAppsList apps) {
             mFolderInfos = dataModel.folders.clone();
             mAppInfos = Arrays.asList(apps.copyData());
+            buildAppInfoIndex();
         }
     }
 
@@ -27,6 +27,7 @@ import android.graphics.drawable.Drawable;
 import android.util.ArrayMap;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.SparseArray;
 import android.view.Gravity;
 import android.view.View;
 import android.view.ViewDebug;
@@ -41,6 +42,7 @@ import com.android.launcher3.PagedView;
 import com.android.launcher3.R;
 import com.android.launcher3.ShortcutAndWidgetContainer;
 import com.android.launcher3.Utilities;
+import com.android.launcher3.compat.AccessibilityManagerCompat;
 import com.android.launcher3.keyboard.ViewGroupFocusHelper;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
@@ -53,6 +55,7 @@ import com.android.launcher3.views.ActivityContext;
 import com.android.launcher3.views.ClipPathView;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -97,6 +100,11 @@ public class FolderPagedView extends PagedView<PageIndicatorDots> implements Cli
     // animating or is open.
     private boolean mViewsBound = false;
 
+    // Items, keyed by rank, whose views have not been created yet. Only the pages around the
+    // current page are inflated when the folder is bound, and the rest are created when they
+    // are scrolled to or when the full list of views is needed.
+    private final SparseArray<WorkspaceItemInfo> mPendingItems = new SparseArray<>();
+
     public FolderPagedView(Context context, AttributeSet attrs) {
         super(context, attrs);
         InvariantDeviceProfile profile = LauncherAppState.getIDP(context);
@@ -151,14 +159,68 @@ public class FolderPagedView extends PagedView<PageIndicatorDots> implements Cli
         if (mViewsBound) {
             unbindItems();
         }
-        arrangeChildren(items.stream().map(this::createNewView).collect(Collectors.toList()));
+        if (AccessibilityManagerCompat.isAccessibilityEnabled(getContext())) {
+            // Accessibility services traverse all the items, create them upfront
+            arrangeChildren(items.stream().map(this::createNewView).collect(Collectors.toList()));
+        } else {
+            // Lay out the pages without any views, and only create the ones around the
+            // current page
+            arrangeChildren(Collections.nCopies(items.size(), null));
+            for (int rank = 0; rank < items.size(); rank++) {
+                if (items.get(rank) != null) {
+                    mPendingItems.put(rank, items.get(rank));
+                }
+            }
+            materializePagesAround(getNextPage());
+        }
         mViewsBound = true;
     }
 
+    /**
+     * Creates the views for the items on {@param pageNo} if they were not created yet
+     */
+    private void materializePage(int pageNo) {
+        if (mPendingItems.size() == 0 || pageNo < 0 || pageNo >= getPageCount()) {
+            return;
+        }
+        int maxItemsPerPage = mOrganizer.getMaxItemsPerPage();
+        int startRank = pageNo * maxItemsPerPage;
+        for (int rank = startRank; rank < startRank + maxItemsPerPage; rank++) {
+            WorkspaceItemInfo item = mPendingItems.get(rank);
+            if (item != null) {
+                mPendingItems.remove(rank);
+                View v = createNewView(item);
+                addViewForRank(v, item, rank);
+                if (mOrganizer.isItemInPreview(rank) && v instanceof BubbleTextView) {
+                    ((BubbleTextView) v).verifyHighRes();
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the views for the items on {@param pageNo} and its adjacent pages
+     */
+    private void materializePagesAround(int pageNo) {
+        materializePage(pageNo);
+        materializePage(pageNo - 1);
+        materializePage(pageNo + 1);
+    }
+
+    /**
+     * Creates the views for all the items which were not created yet
+     */
+    private void materializeAllPages() {
+        for (int i = getPageCount() - 1; i >= 0 && mPendingItems.size() > 0; i--) {
+            materializePage(i);
+        }
+    }
+
     /**
      * Removes all the icons from the folder
      */
     public void unbindItems() {
+        mPendingItems.clear();
         for (int i = getChildCount() - 1; i >= 0; i--) {
             CellLayout page = (CellLayout) getChildAt(i);
             ShortcutAndWidgetContainer container = page.getShortcutsAndWidgets();
@@ -384,6 +446,7 @@ public class FolderPagedView extends PagedView<PageIndicatorDots> implements Cli
         if (getChildCount() < 1) {
             return null;
         }
+        materializePage(getNextPage());
         ShortcutAndWidgetContainer container = getCurrentCellLayout().getShortcutsAndWidgets();
         int rank = rankProvider.applyAsInt(container);
         if (mGridCountX > 0) {
@@ -398,6 +461,7 @@ public class FolderPagedView extends PagedView<PageIndicatorDots> implements Cli
      * @return the view for which the operator returned true.
      */
     public View iterateOverItems(ItemOperator op) {
+        materializeAllPages();
         for (int k = 0 ; k < getChildCount(); k++) {
             CellLayout page = getPageAt(k);
             for (int j = 0; j < page.getCountY(); j++) {
@@ -412,6 +476,27 @@ public class FolderPagedView extends PagedView<PageIndicatorDots> implements Cli
         return null;
     }
 
+    /**
+     * Returns the icons on {@param pageNo} in reading order
+     */
+    public List<BubbleTextView> getItemsOnPage(int pageNo) {
+        List<BubbleTextView> items = new ArrayList<>();
+        CellLayout page = getPageAt(pageNo);
+        if (page == null) {
+            return items;
+        }
+        materializePage(pageNo);
+        for (int j = 0; j < page.getCountY(); j++) {
+            for (int i = 0; i < page.getCountX(); i++) {
+                View v = page.getChildAt(i, j);
+                if (v != null) {
+                    items.add((BubbleTextView) v);
+                }
+            }
+        }
+        return items;
+    }
+
     public String getAccessibilityDescription() {
         return getContext().getString(R.string.folder_opened, mGridCountX, mGridCountY);
     }
@@ -420,6 +505,7 @@ public class FolderPagedView extends PagedView<PageIndicatorDots> implements Cli
      * Sets the focus on the first visible child.
      */
     public void setFocusOnFirstChild() {
+        materializePage(getNextPage());
         View firstChild = getCurrentCellLayout().getChildAt(0, 0);
         if (firstChild != null) {
             firstChild.requestFocus();
@@ -429,6 +515,7 @@ public class FolderPagedView extends PagedView<PageIndicatorDots> implements Cli
     @Override
     protected void notifyPageSwitchListener(int prevPage) {
         super.notifyPageSwitchListener(prevPage);
+        materializePagesAround(getNextPage());
         if (mFolder != null) {
             mFolder.updateTextViewFocus();
         }
@@ -476,6 +563,7 @@ public class FolderPagedView extends PagedView<PageIndicatorDots> implements Cli
     @Override
     protected void onPageBeginTransition() {
         super.onPageBeginTransition();
+        materializePagesAround(getCurrentPage());
         // Ensure that adjacent pages have high resolution icons
         verifyVisibleHighResIcons(getCurrentPage() - 1);
         verifyVisibleHighResIcons(getCurrentPage() + 1);
@@ -512,6 +600,8 @@ public class FolderPagedView extends PagedView<PageIndicatorDots> implements Cli
         if (!mViewsBound) {
             return;
         }
+        // Items move across pages, so all the views need to exist
+        materializeAllPages();
         completePendingPageChanges();
         int delay = 0;
         float delayAmount = START_VIEW_REORDER_DELAY;
@@ -27,10 +27,14 @@ import android.animation.AnimatorListenerAdapter;
 import android.animation.ObjectAnimator;
 import android.animation.ValueAnimator;
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PointF;
 import android.graphics.Rect;
+import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
 import android.util.FloatProperty;
 import android.view.View;
@@ -44,6 +48,7 @@ import com.android.launcher3.model.data.ItemInfoWithIcon;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
 import com.android.launcher3.views.ActivityContext;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
@@ -97,6 +102,24 @@ public class PreviewItemManager {
     private static final int SLIDE_IN_FIRST_PAGE_ANIMATION_DURATION = 300;
     private static final int ITEM_SLIDE_IN_OUT_DISTANCE_PX = 200;
 
+    // Stats for the composited preview, shared across all folder icons
+    private static int sPreviewCacheHits;
+    private static int sPreviewCacheMisses;
+    private static int sLiveDraws;
+    private static long sCachedDrawNanos;
+    private static long sLiveDrawNanos;
+
+    // Composited first page preview, drawn in place of the individual items when nothing in
+    // the preview is animating
+    private Bitmap mPreviewBitmap;
+    private final Canvas mPreviewCanvas = new Canvas();
+    private final Paint mPreviewPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect mPreviewBitmapBounds = new Rect();
+    private final ArrayList<Drawable> mPreviewBitmapDrawables = new ArrayList<>();
+    private boolean mPreviewBitmapValid;
+    private final RectF mTmpBounds = new RectF();
+    private final Rect mTmpRect = new Rect();
+
     public PreviewItemManager(FolderIcon icon) {
         mContext = icon.getContext();
         mIcon = icon;
@@ -186,9 +209,22 @@ public class PreviewItemManager {
      * Draws the preview items on {@param canvas}.
      */
     public void draw(Canvas canvas) {
+        long startTime = System.nanoTime();
+        PreviewBackground bg = mIcon.getFolderBackground();
+        if (!mShouldSlideInFirstPage && updatePreviewBitmap(bg)) {
+            canvas.drawBitmap(mPreviewBitmap, mPreviewBitmapBounds.left,
+                    mPreviewBitmapBounds.top, mPreviewPaint);
+            sCachedDrawNanos += System.nanoTime() - startTime;
+            return;
+        }
+        sLiveDraws++;
+        drawLive(canvas, bg);
+        sLiveDrawNanos += System.nanoTime() - startTime;
+    }
+
+    private void drawLive(Canvas canvas, PreviewBackground bg) {
         int saveCount = canvas.getSaveCount();
         // The items are drawn in coordinates relative to the preview offset
-        PreviewBackground bg = mIcon.getFolderBackground();
         Path clipPath = bg.getClipPath();
         float firstPageItemsTransX = 0;
         if (mShouldSlideInFirstPage) {
@@ -206,6 +242,78 @@ public class PreviewItemManager {
         canvas.restoreToCount(saveCount);
     }
 
+    /**
+     * Makes sure that {@link #mPreviewBitmap} holds the current first page preview.
+     *
+     * @return false if the preview is animating and needs to be drawn live.
+     */
+    private boolean updatePreviewBitmap(PreviewBackground bg) {
+        mTmpBounds.setEmpty();
+        for (int i = 0; i < mFirstPageParams.size(); i++) {
+            PreviewItemDrawingParams p = mFirstPageParams.get(i);
+            if (p.anim != null || p.index == EXIT_INDEX
+                    || p.drawable instanceof PreloadIconDrawable) {
+                return false;
+            }
+            if (!p.hidden && p.drawable != null) {
+                float left = bg.basePreviewOffsetX + p.transX;
+                float top = bg.basePreviewOffsetY + p.transY;
+                float size = mIntrinsicIconSize * p.scale;
+                mTmpBounds.union(left, top, left + size, top + size);
+            }
+        }
+        if (mTmpBounds.isEmpty()) {
+            return false;
+        }
+        mTmpBounds.roundOut(mTmpRect);
+        if (mPreviewBitmapValid && mTmpRect.equals(mPreviewBitmapBounds)
+                && hasSameDrawables(mFirstPageParams)) {
+            sPreviewCacheHits++;
+            return true;
+        }
+        sPreviewCacheMisses++;
+
+        if (mPreviewBitmap == null || mPreviewBitmap.getWidth() != mTmpRect.width()
+                || mPreviewBitmap.getHeight() != mTmpRect.height()) {
+            mPreviewBitmap = Bitmap.createBitmap(
+                    mTmpRect.width(), mTmpRect.height(), Bitmap.Config.ARGB_8888);
+        } else {
+            mPreviewBitmap.eraseColor(Color.TRANSPARENT);
+        }
+        mPreviewBitmapBounds.set(mTmpRect);
+        mPreviewCanvas.setBitmap(mPreviewBitmap);
+        mPreviewCanvas.translate(-mTmpRect.left, -mTmpRect.top);
+        drawParams(mPreviewCanvas, mFirstPageParams,
+                new PointF(bg.basePreviewOffsetX, bg.basePreviewOffsetY), false, null);
+        mPreviewCanvas.setBitmap(null);
+
+        mPreviewBitmapDrawables.clear();
+        for (int i = 0; i < mFirstPageParams.size(); i++) {
+            mPreviewBitmapDrawables.add(mFirstPageParams.get(i).drawable);
+        }
+        mPreviewBitmapValid = true;
+        return true;
+    }
+
+    private boolean hasSameDrawables(ArrayList<PreviewItemDrawingParams> params) {
+        if (params.size() != mPreviewBitmapDrawables.size()) {
+            return false;
+        }
+        for (int i = 0; i < params.size(); i++) {
+            if (params.get(i).drawable != mPreviewBitmapDrawables.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marks the composited preview as stale, so that it is redrawn on the next frame
+     */
+    void invalidatePreviewCache() {
+        mPreviewBitmapValid = false;
+    }
+
     public void onParamsChanged() {
         mIcon.invalidate();
     }
@@ -249,9 +357,11 @@ public class PreviewItemManager {
         if (params != null) {
             params.hidden = hidden;
         }
+        invalidatePreviewCache();
     }
 
     void buildParamsForPage(int page, ArrayList<PreviewItemDrawingParams> params, boolean animate) {
+        invalidatePreviewCache();
         List<WorkspaceItemInfo> items = mIcon.getPreviewItemsOnPage(page);
         int prevNumItems = params.size();
 
@@ -433,9 +543,23 @@ public class PreviewItemManager {
         }
         p.drawable.setBounds(0, 0, mIconSize, mIconSize);
         p.item = item;
+        invalidatePreviewCache();
 
         // Set the callback to FolderIcon as it is responsible to drawing the icon. The
         // callback will be released when the folder is opened.
         p.drawable.setCallback(mIcon);
     }
+
+    /**
+     * Dumps the composited preview stats for all folder icons
+     */
+    public static void dump(String prefix, PrintWriter writer) {
+        int cachedDraws = sPreviewCacheHits + sPreviewCacheMisses;
+        long avgCachedNanos = cachedDraws == 0 ? 0 : sCachedDrawNanos / cachedDraws;
+        long avgLiveNanos = sLiveDraws == 0 ? 0 : sLiveDrawNanos / sLiveDraws;
+        writer.println(prefix + "FolderIcon preview cache: hits=" + sPreviewCacheHits
+                + " misses=" + sPreviewCacheMisses + " liveDraws=" + sLiveDraws
+                + " avgCachedDrawUs=" + avgCachedNanos / 1000
+                + " avgLiveDrawUs=" + avgLiveNanos / 1000);
+    }
 }
@@ -69,6 +69,7 @@ public class GridCustomizationsProvider extends ContentProvider {
     private static final String KEY_CALLBACK = "callback";
 
     private final ArrayMap<IBinder, PreviewLifecycleObserver> mActivePreviews = new ArrayMap<>();
+    private final PreviewCache mPreviewCache = new PreviewCache();
 
     @Override
     public boolean onCreate() {
@@ -173,7 +174,8 @@ public class GridCustomizationsProvider extends ContentProvider {
     private synchronized Bundle getPreview(Bundle request) {
         PreviewLifecycleObserver observer = null;
         try {
-            PreviewSurfaceRenderer renderer = new PreviewSurfaceRenderer(getContext(), request);
+            PreviewSurfaceRenderer renderer = new PreviewSurfaceRenderer(getContext(), request,
+                    mPreviewCache);
 
             // Destroy previous
             destroyObserver(mActivePreviews.get(renderer.getHostToken()));
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.graphics;
+
+import android.app.WallpaperColors;
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Cache of rendered workspace previews, so that switching between grid options in the wallpaper
+ * picker does not require loading the model and inflating the workspace again. Previews
+ * containing widgets are not cached, as widgets keep updating after the preview is rendered.
+ */
+public class PreviewCache {
+
+    // Number of grid options generally offered by the picker
+    private static final int MAX_ENTRIES = 4;
+
+    private final LruCache<Key, Bitmap> mCache = new LruCache<>(MAX_ENTRIES);
+
+    private int mHitCount;
+    private int mMissCount;
+
+    /**
+     * Returns the preview rendered for the provided key or null
+     */
+    @Nullable
+    public synchronized Bitmap get(Key key) {
+        Bitmap result = mCache.get(key);
+        if (result != null) {
+            mHitCount++;
+        } else {
+            mMissCount++;
+        }
+        return result;
+    }
+
+    /**
+     * Adds a rendered preview to the cache
+     */
+    public synchronized void put(Key key, Bitmap preview) {
+        mCache.put(key, preview);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PreviewCache{size=" + mCache.size()
+                + ", hits=" + mHitCount + ", misses=" + mMissCount + "}";
+    }
+
+    /**
+     * Identifies a single rendered preview
+     */
+    public static class Key {
+
+        @Nullable
+        private final String mGridName;
+        @Nullable
+        private final WallpaperColors mWallpaperColors;
+        private final boolean mThemedIcons;
+        private final int mNightMode;
+        private final int mWidth;
+        private final int mHeight;
+        private final int mModelVersion;
+
+        public Key(@Nullable String gridName, @Nullable WallpaperColors wallpaperColors,
+                boolean themedIcons, int nightMode, int width, int height, int modelVersion) {
+            mGridName = gridName;
+            mWallpaperColors = wallpaperColors;
+            mThemedIcons = themedIcons;
+            mNightMode = nightMode;
+            mWidth = width;
+            mHeight = height;
+            mModelVersion = modelVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return Objects.equals(mGridName, other.mGridName)
+                    && Objects.equals(mWallpaperColors, other.mWallpaperColors)
+                    && mThemedIcons == other.mThemedIcons
+                    && mNightMode == other.mNightMode
+                    && mWidth == other.mWidth
+                    && mHeight == other.mHeight
+                    && mModelVersion == other.mModelVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mGridName, mWallpaperColors, mThemedIcons, mNightMode, mWidth,
+                    mHeight, mModelVersion);
+        }
+    }
+}
@@ -22,6 +22,8 @@ import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
 import android.app.WallpaperColors;
 import android.appwidget.AppWidgetProviderInfo;
 import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
 import android.hardware.display.DisplayManager;
 import android.os.Bundle;
 import android.os.IBinder;
@@ -33,6 +35,7 @@ import android.view.SurfaceControlViewHost.SurfacePackage;
 import android.view.View;
 import android.view.WindowManager.LayoutParams;
 import android.view.animation.AccelerateDecelerateInterpolator;
+import android.widget.ImageView;
 
 import androidx.annotation.UiThread;
 import androidx.annotation.WorkerThread;
@@ -44,6 +47,7 @@ import com.android.launcher3.LauncherSettings;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.Workspace;
 import com.android.launcher3.graphics.LauncherPreviewRenderer.PreviewContext;
+import com.android.launcher3.icons.BitmapRenderer;
 import com.android.launcher3.model.BgDataModel;
 import com.android.launcher3.model.GridSizeMigrationTaskV2;
 import com.android.launcher3.model.LoaderTask;
@@ -73,19 +77,23 @@ public class PreviewSurfaceRenderer {
 
     private final Context mContext;
     private final InvariantDeviceProfile mIdp;
+    private final String mGridName;
     private final IBinder mHostToken;
     private final int mWidth;
     private final int mHeight;
     private final Display mDisplay;
     private final WallpaperColors mWallpaperColors;
+    private final PreviewCache mPreviewCache;
     private final RunnableList mOnDestroyCallbacks = new RunnableList();
 
     private final SurfaceControlViewHost mSurfaceControlViewHost;
 
     private boolean mDestroyed = false;
 
-    public PreviewSurfaceRenderer(Context context, Bundle bundle) throws Exception {
+    public PreviewSurfaceRenderer(Context context, Bundle bundle, PreviewCache previewCache)
+            throws Exception {
         mContext = context;
+        mPreviewCache = previewCache;
 
         String gridName = bundle.getString("name");
         bundle.remove("name");
@@ -93,6 +101,7 @@ public class PreviewSurfaceRenderer {
             gridName = InvariantDeviceProfile.getCurrentGridName(context);
         }
         mWallpaperColors = bundle.getParcelable(KEY_COLORS);
+        mGridName = gridName;
         mIdp = new InvariantDeviceProfile(context, gridName);
 
         mHostToken = bundle.getBinder(KEY_HOST_TOKEN);
@@ -133,6 +142,17 @@ public class PreviewSurfaceRenderer {
 
     @WorkerThread
     private void loadModelData() {
+        PreviewCache.Key cacheKey = new PreviewCache.Key(mGridName, mWallpaperColors,
+                Themes.isThemedIconEnabled(mContext),
+                mContext.getResources().getConfiguration().uiMode
+                        & Configuration.UI_MODE_NIGHT_MASK,
+                mWidth, mHeight, LauncherAppState.getInstance(mContext).getModel().getModelVersion());
+        Bitmap cachedPreview = mPreviewCache.get(cacheKey);
+        if (cachedPreview != null) {
+            MAIN_EXECUTOR.execute(() -> renderCachedPreview(cachedPreview));
+            return;
+        }
+
         final boolean migrated = doGridMigrationIfNecessary();
 
         final Context inflationContext;
@@ -175,7 +195,7 @@ public class PreviewSurfaceRenderer {
                             query);
 
                     MAIN_EXECUTOR.execute(() -> {
-                        renderView(previewContext, mBgDataModel, mWidgetProvidersMap);
+                        renderView(previewContext, mBgDataModel, mWidgetProvidersMap, cacheKey);
                         mOnDestroyCallbacks.add(previewContext::onDestroy);
                     });
                 }
@@ -183,7 +203,8 @@ public class PreviewSurfaceRenderer {
         } else {
             LauncherAppState.getInstance(inflationContext).getModel().loadAsync(dataModel -> {
                 if (dataModel != null) {
-                    MAIN_EXECUTOR.execute(() -> renderView(inflationContext, dataModel, null));
+                    MAIN_EXECUTOR.execute(
+                            () -> renderView(inflationContext, dataModel, null, cacheKey));
                 } else {
                     Log.e(TAG, "Model loading failed");
                 }
@@ -201,7 +222,8 @@ public class PreviewSurfaceRenderer {
 
     @UiThread
     private void renderView(Context inflationContext, BgDataModel dataModel,
-            Map<ComponentKey, AppWidgetProviderInfo> widgetProviderInfoMap) {
+            Map<ComponentKey, AppWidgetProviderInfo> widgetProviderInfoMap,
+            PreviewCache.Key cacheKey) {
         if (mDestroyed) {
             return;
         }
@@ -210,17 +232,46 @@ public class PreviewSurfaceRenderer {
         // This aspect scales the view to fit in the surface and centers it
         final float scale = Math.min(mWidth / (float) view.getMeasuredWidth(),
                 mHeight / (float) view.getMeasuredHeight());
+        final float translationX = (mWidth - scale * view.getWidth()) / 2;
+        final float translationY = (mHeight - scale * view.getHeight()) / 2;
+
+        // Keep a snapshot of the preview, so that the picker can switch back to this option
+        // without loading and inflating it again. Widgets keep updating in the live preview, a
+        // snapshot of them would show stale content.
+        if (dataModel.appWidgets.isEmpty()) {
+            mPreviewCache.put(cacheKey, BitmapRenderer.createHardwareBitmap(mWidth, mHeight, c -> {
+                c.translate(translationX, translationY);
+                c.scale(scale, scale);
+                view.draw(c);
+            }));
+        }
+
         view.setScaleX(scale);
         view.setScaleY(scale);
         view.setPivotX(0);
         view.setPivotY(0);
-        view.setTranslationX((mWidth - scale * view.getWidth()) / 2);
-        view.setTranslationY((mHeight - scale * view.getHeight()) / 2);
+        view.setTranslationX(translationX);
+        view.setTranslationY(translationY);
+        showView(view, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+
+    @UiThread
+    private void renderCachedPreview(Bitmap preview) {
+        if (mDestroyed) {
+            return;
+        }
+        ImageView view = new ImageView(mContext);
+        view.setImageBitmap(preview);
+        showView(view, mWidth, mHeight);
+    }
+
+    @UiThread
+    private void showView(View view, int width, int height) {
         view.setAlpha(0);
         view.animate().alpha(1)
                 .setInterpolator(new AccelerateDecelerateInterpolator())
                 .setDuration(FADE_IN_ANIMATION_DURATION)
                 .start();
-        mSurfaceControlViewHost.setView(view, view.getMeasuredWidth(), view.getMeasuredHeight());
+        mSurfaceControlViewHost.setView(view, width, height);
     }
 }
@@ -98,6 +98,13 @@ public class BgDataModel {
      */
     public final IntSparseArrayMap<FolderInfo> folders = new IntSparseArrayMap<>();
 
+    /**
+     * Copy of {@link #folders} which can be read without holding the model lock, rebuilt lazily
+     * after the folders change.
+     * @see #getFoldersSnapshot()
+     */
+    private volatile IntSparseArrayMap<FolderInfo> mFoldersSnapshot;
+
     /**
      * Extra container based items
      */
@@ -108,6 +115,11 @@ public class BgDataModel {
      */
     public final HashMap<ComponentKey, Integer> deepShortcutMap = new HashMap<>();
 
+    /**
+     * In-memory index of the shortcut counts, used to avoid querying all the shortcuts on reload.
+     */
+    public final DeepShortcutIndex deepShortcutIndex = new DeepShortcutIndex();
+
     /**
      * Entire list of widgets.
      */
@@ -125,6 +137,7 @@ public class BgDataModel {
         workspaceItems.clear();
         appWidgets.clear();
         folders.clear();
+        mFoldersSnapshot = null;
         itemsIdMap.clear();
         deepShortcutMap.clear();
         extraItems.clear();
@@ -173,6 +186,7 @@ public class BgDataModel {
             }
             writer.println();
         }
+        deepShortcutIndex.dump(prefix, writer);
     }
 
     public synchronized void removeItem(Context context, ItemInfo... items) {
@@ -185,6 +199,7 @@ public class BgDataModel {
             switch (item.itemType) {
                 case LauncherSettings.Favorites.ITEM_TYPE_FOLDER:
                     folders.remove(item.id);
+                    mFoldersSnapshot = null;
                     if (FeatureFlags.IS_STUDIO_BUILD) {
                         for (ItemInfo info : itemsIdMap) {
                             if (info.container == item.id) {
@@ -234,6 +249,7 @@ public class BgDataModel {
         switch (item.itemType) {
             case LauncherSettings.Favorites.ITEM_TYPE_FOLDER:
                 folders.put(item.id, (FolderInfo) item);
+                mFoldersSnapshot = null;
                 workspaceItems.add(item);
                 break;
             case LauncherSettings.Favorites.ITEM_TYPE_DEEP_SHORTCUT:
@@ -354,10 +370,36 @@ public class BgDataModel {
             // No placeholder -- create a new instance
             folderInfo = new FolderInfo();
             folders.put(id, folderInfo);
+            mFoldersSnapshot = null;
         }
         return folderInfo;
     }
 
+    /**
+     * Returns a snapshot of all the folders which can be read from any thread. The returned map
+     * is shared and must not be modified.
+     */
+    public IntSparseArrayMap<FolderInfo> getFoldersSnapshot() {
+        IntSparseArrayMap<FolderInfo> snapshot = mFoldersSnapshot;
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = mFoldersSnapshot;
+                if (snapshot == null) {
+                    snapshot = folders.clone();
+                    mFoldersSnapshot = snapshot;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Invalidates the folders snapshot, when {@link #folders} is modified directly.
+     */
+    public synchronized void invalidateFoldersSnapshot() {
+        mFoldersSnapshot = null;
+    }
+
     /**
      * Clear all the deep shortcut counts for the given package, and re-add the new shortcut counts.
      */
@@ -376,10 +418,7 @@ public class BgDataModel {
 
         // Now add the new shortcuts to the map.
         for (ShortcutInfo shortcut : shortcuts) {
-            boolean shouldShowInContainer = shortcut.isEnabled()
-                    && (shortcut.isDeclaredInManifest() || shortcut.isDynamic())
-                    && shortcut.getActivity() != null;
-            if (shouldShowInContainer) {
+            if (isShownInContainer(shortcut)) {
                 ComponentKey targetComponent
                         = new ComponentKey(shortcut.getActivity(), shortcut.getUserHandle());
 
@@ -389,6 +428,15 @@ public class BgDataModel {
         }
     }
 
+    /**
+     * Returns true if the shortcut is shown in the popup container of its activity.
+     */
+    public static boolean isShownInContainer(ShortcutInfo shortcut) {
+        return shortcut.isEnabled()
+                && (shortcut.isDeclaredInManifest() || shortcut.isDynamic())
+                && shortcut.getActivity() != null;
+    }
+
     /**
      * Returns a list containing all workspace items including widgets.
      */
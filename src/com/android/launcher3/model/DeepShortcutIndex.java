@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.ShortcutInfo;
+import android.os.UserHandle;
+import android.util.ArrayMap;
+
+import androidx.annotation.WorkerThread;
+
+import com.android.launcher3.shortcuts.ShortcutRequest;
+import com.android.launcher3.shortcuts.ShortcutRequest.QueryResult;
+import com.android.launcher3.util.ComponentKey;
+import com.android.launcher3.util.PackageUserKey;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the number of published shortcuts per activity, keyed by package and user. This
+ * allows the loader to only query the shortcuts of packages which changed since they were
+ * indexed, instead of all the shortcuts of every user.
+ *
+ * Packages are versioned: {@link #markDirty} bumps the version of a package, invalidating its
+ * entry until it is queried again. The index is only kept in memory: LauncherApps does not report
+ * the shortcut changes which happened while the process was not running, so the first load of a
+ * process always queries everything.
+ *
+ * This class is not thread safe and should only be used on the model thread.
+ */
+public class DeepShortcutIndex {
+
+    private final HashMap<PackageUserKey, PackageEntry> mEntries = new HashMap<>();
+    private final HashMap<PackageUserKey, Integer> mVersions = new HashMap<>();
+
+    private int mPackagesQueried;
+    private int mFullQueries;
+    private int mPackagesReused;
+
+    /**
+     * Marks the provided packages as changed so that their shortcuts are queried again on the
+     * next load.
+     */
+    public void markDirty(UserHandle user, String... packageNames) {
+        for (String packageName : packageNames) {
+            PackageUserKey key = new PackageUserKey(packageName, user);
+            mVersions.put(key, getVersion(key) + 1);
+            mEntries.remove(key);
+        }
+    }
+
+    /**
+     * Adds the shortcut counts of all the provided packages to {@param outCounts}, only querying
+     * the packages which are not indexed yet or were marked dirty.
+     *
+     * @param packages all the packages of the user with launcher activities
+     * @param outShortcuts list where all the queried shortcuts are added
+     * @return true if all the shortcuts of the user were queried
+     */
+    @WorkerThread
+    public boolean loadShortcutCounts(Context context, UserHandle user, Set<String> packages,
+            Map<ComponentKey, Integer> outCounts, List<ShortcutInfo> outShortcuts) {
+        // Remove packages which are no longer installed
+        Iterator<PackageUserKey> keysIter = mEntries.keySet().iterator();
+        while (keysIter.hasNext()) {
+            PackageUserKey key = keysIter.next();
+            if (key.mUser.equals(user) && !packages.contains(key.mPackageName)) {
+                keysIter.remove();
+            }
+        }
+
+        List<String> packagesToQuery = new ArrayList<>();
+        for (String packageName : packages) {
+            PackageUserKey key = new PackageUserKey(packageName, user);
+            PackageEntry entry = mEntries.get(key);
+            if (entry == null || entry.version != getVersion(key)) {
+                packagesToQuery.add(packageName);
+            } else {
+                mPackagesReused++;
+            }
+        }
+
+        // A single query is cheaper than querying most of the packages one by one
+        boolean fullQuery = packagesToQuery.size() > packages.size() / 2;
+        if (fullQuery) {
+            QueryResult shortcuts = new ShortcutRequest(context, user).query(ShortcutRequest.ALL);
+            if (shortcuts.wasSuccess()) {
+                mFullQueries++;
+                outShortcuts.addAll(shortcuts);
+                HashMap<String, List<ShortcutInfo>> shortcutsByPackage = new HashMap<>();
+                for (ShortcutInfo shortcut : shortcuts) {
+                    shortcutsByPackage.computeIfAbsent(shortcut.getPackage(),
+                            p -> new ArrayList<>()).add(shortcut);
+                }
+                for (String packageName : packagesToQuery) {
+                    List<ShortcutInfo> packageShortcuts = shortcutsByPackage.get(packageName);
+                    indexPackage(packageName, user, packageShortcuts == null
+                            ? new ArrayList<>() : packageShortcuts);
+                }
+            } else {
+                fullQuery = false;
+            }
+        } else {
+            for (String packageName : packagesToQuery) {
+                QueryResult shortcuts = new ShortcutRequest(context, user)
+                        .forPackage(packageName)
+                        .query(ShortcutRequest.ALL);
+                if (shortcuts.wasSuccess()) {
+                    mPackagesQueried++;
+                    outShortcuts.addAll(shortcuts);
+                    indexPackage(packageName, user, shortcuts);
+                }
+            }
+        }
+
+        for (Map.Entry<PackageUserKey, PackageEntry> e : mEntries.entrySet()) {
+            if (!e.getKey().mUser.equals(user)) {
+                continue;
+            }
+            String packageName = e.getKey().mPackageName;
+            ArrayMap<String, Integer> counts = e.getValue().counts;
+            for (int i = counts.size() - 1; i >= 0; i--) {
+                outCounts.put(new ComponentKey(
+                        new ComponentName(packageName, counts.keyAt(i)), user),
+                        counts.valueAt(i));
+            }
+        }
+
+        return fullQuery;
+    }
+
+    private void indexPackage(String packageName, UserHandle user, List<ShortcutInfo> shortcuts) {
+        PackageUserKey key = new PackageUserKey(packageName, user);
+        PackageEntry entry = new PackageEntry(getVersion(key));
+        for (ShortcutInfo shortcut : shortcuts) {
+            if (BgDataModel.isShownInContainer(shortcut)) {
+                String className = shortcut.getActivity().getClassName();
+                Integer previousCount = entry.counts.get(className);
+                entry.counts.put(className, previousCount == null ? 1 : previousCount + 1);
+            }
+        }
+        mEntries.put(key, entry);
+    }
+
+    private int getVersion(PackageUserKey key) {
+        Integer version = mVersions.get(key);
+        return version == null ? 0 : version;
+    }
+
+    public void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "DeepShortcutIndex: packages=" + mEntries.size()
+                + " fullQueries=" + mFullQueries
+                + " packagesQueried=" + mPackagesQueried
+                + " packagesReused=" + mPackagesReused);
+    }
+
+    /**
+     * Shortcut counts of a single package, by activity class name
+     */
+    private static class PackageEntry {
+
+        final int version;
+        final ArrayMap<String, Integer> counts = new ArrayMap<>();
+
+        PackageEntry(int version) {
+            this.version = version;
+        }
+    }
+}
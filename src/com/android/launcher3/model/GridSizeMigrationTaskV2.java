@@ -31,7 +31,10 @@ import android.database.sqlite.SQLiteDatabase;
 import android.graphics.Point;
 import android.util.ArrayMap;
 import android.util.Log;
+import android.util.Pair;
+import android.util.SparseArray;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.launcher3.InvariantDeviceProfile;
@@ -285,49 +288,35 @@ public class GridSizeMigrationTaskV2 {
     }
 
     private static void insertEntryInDb(SQLiteDatabase db, Context context, DbEntry entry,
-            String srcTableName, String destTableName) {
-        int id = copyEntryAndUpdate(db, context, entry, srcTableName, destTableName);
+            DbReader srcReader, String destTableName) {
+        int id = copyEntryAndUpdate(db, context, entry, entry.id, -1, srcReader, destTableName);
 
         if (entry.itemType == LauncherSettings.Favorites.ITEM_TYPE_FOLDER) {
             for (Set<Integer> itemIds : entry.mFolderItems.values()) {
                 for (int itemId : itemIds) {
-                    copyEntryAndUpdate(db, context, itemId, id, srcTableName, destTableName);
+                    copyEntryAndUpdate(db, context, null, itemId, id, srcReader, destTableName);
                 }
             }
         }
     }
 
     private static int copyEntryAndUpdate(SQLiteDatabase db, Context context,
-            DbEntry entry, String srcTableName, String destTableName) {
-        return copyEntryAndUpdate(db, context, entry, -1, -1, srcTableName, destTableName);
-    }
-
-    private static int copyEntryAndUpdate(SQLiteDatabase db, Context context,
-            int id, int folderId, String srcTableName, String destTableName) {
-        return copyEntryAndUpdate(db, context, null, id, folderId, srcTableName, destTableName);
-    }
-
-    private static int copyEntryAndUpdate(SQLiteDatabase db, Context context,
-            DbEntry entry, int id, int folderId, String srcTableName, String destTableName) {
-        int newId = -1;
-        Cursor c = db.query(srcTableName, null,
-                LauncherSettings.Favorites._ID + " = '" + (entry != null ? entry.id : id) + "'",
-                null, null, null, null);
-        while (c.moveToNext()) {
-            ContentValues values = new ContentValues();
-            DatabaseUtils.cursorRowToContentValues(c, values);
-            if (entry != null) {
-                entry.updateContentValues(values);
-            } else {
-                values.put(LauncherSettings.Favorites.CONTAINER, folderId);
-            }
-            newId = LauncherSettings.Settings.call(context.getContentResolver(),
-                    LauncherSettings.Settings.METHOD_NEW_ITEM_ID).getInt(
-                    LauncherSettings.Settings.EXTRA_VALUE);
-            values.put(LauncherSettings.Favorites._ID, newId);
-            db.insert(destTableName, null, values);
-        }
-        c.close();
+            DbEntry entry, int id, int folderId, DbReader srcReader, String destTableName) {
+        ContentValues srcValues = srcReader.getRowValues(id);
+        if (srcValues == null) {
+            return -1;
+        }
+        ContentValues values = new ContentValues(srcValues);
+        if (entry != null) {
+            entry.updateContentValues(values);
+        } else {
+            values.put(LauncherSettings.Favorites.CONTAINER, folderId);
+        }
+        int newId = LauncherSettings.Settings.call(context.getContentResolver(),
+                LauncherSettings.Settings.METHOD_NEW_ITEM_ID).getInt(
+                LauncherSettings.Settings.EXTRA_VALUE);
+        values.put(LauncherSettings.Favorites._ID, newId);
+        db.insert(destTableName, null, values);
         return newId;
     }
 
@@ -367,6 +356,7 @@ public class GridSizeMigrationTaskV2 {
 
         private int mNextStartX;
         private int mNextStartY;
+        private int mVacantCells;
 
         GridPlacementSolution(SQLiteDatabase db, DbReader srcReader, DbReader destReader,
                 Context context, int screenId, int trgX, int trgY, List<DbEntry> itemsToPlace) {
@@ -386,6 +376,13 @@ public class GridSizeMigrationTaskV2 {
                     mOccupied.markCells(entry, true);
                 }
             }
+            for (int x = 0; x < trgX; x++) {
+                for (int y = (screenId == 0 ? 1 /* smartspace */ : 0); y < trgY; y++) {
+                    if (!mOccupied.cells[x][y]) {
+                        mVacantCells++;
+                    }
+                }
+            }
             mItemsToPlace = itemsToPlace;
         }
 
@@ -397,9 +394,12 @@ public class GridSizeMigrationTaskV2 {
                     iterator.remove();
                     continue;
                 }
+                if (mVacantCells <= 0) {
+                    // Screen is full, remaining items will be placed on the next screens
+                    return;
+                }
                 if (findPlacement(entry)) {
-                    insertEntryInDb(mDb, mContext, entry, mSrcReader.mTableName,
-                            mDestReader.mTableName);
+                    insertEntryInDb(mDb, mContext, entry, mSrcReader, mDestReader.mTableName);
                     iterator.remove();
                 }
             }
@@ -425,6 +425,7 @@ public class GridSizeMigrationTaskV2 {
                         entry.cellX = x;
                         entry.cellY = y;
                         mOccupied.markCells(entry, true);
+                        mVacantCells -= entry.spanX * entry.spanY;
                         mNextStartX = x + entry.spanX;
                         mNextStartY = y;
                         return true;
@@ -468,8 +469,7 @@ public class GridSizeMigrationTaskV2 {
                     // to something other than -1.
                     entry.cellX = i;
                     entry.cellY = 0;
-                    insertEntryInDb(mDb, mContext, entry, mSrcReader.mTableName,
-                            mDestReader.mTableName);
+                    insertEntryInDb(mDb, mContext, entry, mSrcReader, mDestReader.mTableName);
                     mOccupied.markCells(entry, true);
                 }
             }
@@ -502,6 +502,11 @@ public class GridSizeMigrationTaskV2 {
         private final Map<Integer, ArrayList<DbEntry>> mWorkspaceEntriesByScreenId =
                 new ArrayMap<>();
 
+        // Lazily loaded content of the table, used when copying entries to another table
+        private SparseArray<ContentValues> mRowValues;
+        // Lazily loaded folder contents, mapping folder id to pairs of item id and intent
+        private SparseArray<List<Pair<Integer, String>>> mFolderContents;
+
         DbReader(SQLiteDatabase db, String tableName, Context context,
                 HashSet<String> validPackages) {
             mDb = db;
@@ -672,29 +677,76 @@ public class GridSizeMigrationTaskV2 {
         }
 
         private int getFolderItemsCount(DbEntry entry) {
-            Cursor c = queryWorkspace(
-                    new String[]{LauncherSettings.Favorites._ID, LauncherSettings.Favorites.INTENT},
-                    LauncherSettings.Favorites.CONTAINER + " = " + entry.id);
+            List<Pair<Integer, String>> folderItems = getFolderContents().get(entry.id);
+            if (folderItems == null) {
+                return 0;
+            }
 
             int total = 0;
-            while (c.moveToNext()) {
+            IntArray entriesToRemove = new IntArray();
+            for (Pair<Integer, String> item : folderItems) {
                 try {
-                    int id = c.getInt(0);
-                    String intent = c.getString(1);
-                    verifyIntent(intent);
+                    verifyIntent(item.second);
                     total++;
-                    if (!entry.mFolderItems.containsKey(intent)) {
-                        entry.mFolderItems.put(intent, new HashSet<>());
+                    if (!entry.mFolderItems.containsKey(item.second)) {
+                        entry.mFolderItems.put(item.second, new HashSet<>());
                     }
-                    entry.mFolderItems.get(intent).add(id);
+                    entry.mFolderItems.get(item.second).add(item.first);
                 } catch (Exception e) {
-                    removeEntryFromDb(mDb, mTableName, IntArray.wrap(c.getInt(0)));
+                    entriesToRemove.add(item.first);
                 }
             }
-            c.close();
+            removeEntryFromDb(mDb, mTableName, entriesToRemove);
             return total;
         }
 
+        /**
+         * Loads the items of all the folders in a single query, instead of querying the table
+         * once per folder.
+         */
+        private SparseArray<List<Pair<Integer, String>>> getFolderContents() {
+            if (mFolderContents != null) {
+                return mFolderContents;
+            }
+            mFolderContents = new SparseArray<>();
+            try (Cursor c = queryWorkspace(new String[]{
+                            LauncherSettings.Favorites._ID,
+                            LauncherSettings.Favorites.CONTAINER,
+                            LauncherSettings.Favorites.INTENT},
+                    LauncherSettings.Favorites.CONTAINER + " >= 0")) {
+                while (c.moveToNext()) {
+                    int container = c.getInt(1);
+                    List<Pair<Integer, String>> items = mFolderContents.get(container);
+                    if (items == null) {
+                        items = new ArrayList<>();
+                        mFolderContents.put(container, items);
+                    }
+                    items.add(Pair.create(c.getInt(0), c.getString(2)));
+                }
+            }
+            return mFolderContents;
+        }
+
+        /**
+         * Returns all the columns of the row with the provided id. The table is read once on
+         * the first call, so that copying many entries does not issue a query per entry.
+         */
+        @Nullable
+        private ContentValues getRowValues(int id) {
+            if (mRowValues == null) {
+                mRowValues = new SparseArray<>();
+                try (Cursor c = queryWorkspace(null, null)) {
+                    final int indexId = c.getColumnIndexOrThrow(LauncherSettings.Favorites._ID);
+                    while (c.moveToNext()) {
+                        ContentValues values = new ContentValues();
+                        DatabaseUtils.cursorRowToContentValues(c, values);
+                        mRowValues.put(c.getInt(indexId), values);
+                    }
+                }
+            }
+            return mRowValues.get(id);
+        }
+
         private Cursor queryWorkspace(String[] columns, String where) {
             return mDb.query(mTableName, columns, where, null, null, null, null);
         }
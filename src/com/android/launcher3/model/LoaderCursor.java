@@ -31,6 +31,7 @@ import android.provider.BaseColumns;
 import android.text.TextUtils;
 import android.util.Log;
 import android.util.LongSparseArray;
+import android.util.LruCache;
 
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
@@ -64,6 +65,21 @@ public class LoaderCursor extends CursorWrapper {
 
     private static final String TAG = "LoaderCursor";
 
+    // Enough for the intents of a typical workspace, including folders. The cache grows to the
+    // number of rows of larger workspaces, as rows are always read in the same order and an LRU
+    // smaller than that would miss on every lookup. The cache is static, so the growth is capped
+    // to avoid keeping the intents of an unusually large table for the life of the process.
+    private static final int INTENT_CACHE_SIZE = 512;
+    @VisibleForTesting
+    static final int MAX_INTENT_CACHE_SIZE = 2 * INTENT_CACHE_SIZE;
+
+    /**
+     * Intents parsed during previous loads, keyed by their uri. Entries are never modified, only
+     * copies are handed out as intents are updated while loading.
+     */
+    private static final LruCache<String, Intent> INTENT_CACHE =
+            new LruCache<>(INTENT_CACHE_SIZE);
+
     private final LongSparseArray<UserHandle> allUsers;
 
     private final Uri mContentUri;
@@ -128,6 +144,11 @@ public class LoaderCursor extends CursorWrapper {
         profileIdIndex = getColumnIndexOrThrow(LauncherSettings.Favorites.PROFILE_ID);
         restoredIndex = getColumnIndexOrThrow(LauncherSettings.Favorites.RESTORED);
         intentIndex = getColumnIndexOrThrow(LauncherSettings.Favorites.INTENT);
+
+        int cacheSize = Math.min(getCount(), MAX_INTENT_CACHE_SIZE);
+        if (cacheSize > INTENT_CACHE.maxSize()) {
+            INTENT_CACHE.resize(cacheSize);
+        }
     }
 
     @Override
@@ -140,22 +161,48 @@ public class LoaderCursor extends CursorWrapper {
             itemType = getInt(itemTypeIndex);
             container = getInt(containerIndex);
             id = getInt(idIndex);
-            serialNumber = getInt(profileIdIndex);
+            serialNumber = getLong(profileIdIndex);
             user = allUsers.get(serialNumber);
             restoreFlag = getInt(restoredIndex);
         }
         return result;
     }
 
+    /**
+     * Returns a new intent parsed from the intent column of the current row, or null if it is
+     * empty or invalid.
+     */
     public Intent parseIntent() {
         String intentDescription = getString(intentIndex);
-        try {
-            return TextUtils.isEmpty(intentDescription) ?
-                    null : Intent.parseUri(intentDescription, 0);
-        } catch (URISyntaxException e) {
-            Log.e(TAG, "Error parsing Intent");
+        if (TextUtils.isEmpty(intentDescription)) {
             return null;
         }
+        Intent intent = INTENT_CACHE.get(intentDescription);
+        if (intent == null) {
+            try {
+                intent = Intent.parseUri(intentDescription, 0);
+            } catch (URISyntaxException e) {
+                Log.e(TAG, "Error parsing Intent");
+                return null;
+            }
+            INTENT_CACHE.put(intentDescription, intent);
+        }
+        return new Intent(intent);
+    }
+
+    @VisibleForTesting
+    static void clearIntentCache() {
+        INTENT_CACHE.evictAll();
+    }
+
+    @VisibleForTesting
+    static int getIntentCacheHitCount() {
+        return INTENT_CACHE.hitCount();
+    }
+
+    @VisibleForTesting
+    static int getIntentCacheMaxSize() {
+        return INTENT_CACHE.maxSize();
     }
 
     @VisibleForTesting
@@ -276,7 +276,8 @@ public class LoaderTask implements Runnable {
             mResults.bindDeepShortcuts();
             logASplit(logger, "bindDeepShortcuts");
 
-            if (FeatureFlags.ENABLE_DEEP_SHORTCUT_ICON_CACHE.get()) {
+            // Updating the icon cache with a partial list would remove the other shortcuts from it
+            if (FeatureFlags.ENABLE_DEEP_SHORTCUT_ICON_CACHE.get() && allDeepShortcuts != null) {
                 verifyNotStopped();
                 logASplit(logger, "save deep shortcuts in icon cache");
                 updateHandler.updateIcons(allDeepShortcuts,
@@ -929,6 +930,7 @@ public class LoaderTask implements Runnable {
                     mBgDataModel.folders.remove(folderId);
                     mBgDataModel.itemsIdMap.remove(folderId);
                 }
+                mBgDataModel.invalidateFoldersSnapshot();
             }
 
         }
@@ -1019,21 +1021,35 @@ public class LoaderTask implements Runnable {
         return allActivityList;
     }
 
+    /**
+     * Loads the shortcut counts of all the apps, only querying the packages which changed since
+     * they were last indexed.
+     *
+     * @return all the shortcuts of every user, or null if only some of them were queried.
+     */
+    @Nullable
     private List<ShortcutInfo> loadDeepShortcuts() {
         List<ShortcutInfo> allShortcuts = new ArrayList<>();
+        boolean queriedAllShortcuts = true;
         mBgDataModel.deepShortcutMap.clear();
 
         if (mBgAllAppsList.hasShortcutHostPermission()) {
+            HashMap<UserHandle, Set<String>> packagesByUser = new HashMap<>();
+            for (AppInfo app : mBgAllAppsList.data) {
+                packagesByUser.computeIfAbsent(app.user, u -> new HashSet<>())
+                        .add(app.componentName.getPackageName());
+            }
             for (UserHandle user : mUserCache.getUserProfiles()) {
                 if (mUserManager.isUserUnlocked(user)) {
-                    List<ShortcutInfo> shortcuts = new ShortcutRequest(mApp.getContext(), user)
-                            .query(ShortcutRequest.ALL);
-                    allShortcuts.addAll(shortcuts);
-                    mBgDataModel.updateDeepShortcutCounts(null, user, shortcuts);
+                    Set<String> packages = packagesByUser.get(user);
+                    queriedAllShortcuts &= mBgDataModel.deepShortcutIndex.loadShortcutCounts(
+                            mApp.getContext(), user,
+                            packages == null ? Collections.emptySet() : packages,
+                            mBgDataModel.deepShortcutMap, allShortcuts);
                 }
             }
         }
-        return allShortcuts;
+        return queriedAllShortcuts ? allShortcuts : null;
     }
 
     private void loadFolderNames() {
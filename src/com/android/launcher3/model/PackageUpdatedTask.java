@@ -44,6 +44,7 @@ import com.android.launcher3.model.data.LauncherAppWidgetInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
 import com.android.launcher3.pm.PackageInstallInfo;
 import com.android.launcher3.pm.UserCache;
+import com.android.launcher3.popup.PopupShortcutCache;
 import com.android.launcher3.shortcuts.ShortcutRequest;
 import com.android.launcher3.util.FlagOp;
 import com.android.launcher3.util.IntSet;
@@ -103,6 +104,18 @@ public class PackageUpdatedTask extends BaseModelUpdateTask {
         final HashMap<String, List<LauncherActivityInfo>> activitiesLists = new HashMap<>();
         boolean needsRestart = false;
 
+        // The labels and icons of the cached popup shortcuts may have changed
+        PopupShortcutCache shortcutCache = PopupShortcutCache.INSTANCE.getNoCreate();
+        if (shortcutCache != null) {
+            if (mOp == OP_USER_AVAILABILITY_CHANGE) {
+                shortcutCache.invalidateUser(mUser);
+            } else {
+                for (String packageName : packages) {
+                    shortcutCache.invalidate(packageName, mUser);
+                }
+            }
+        }
+
         switch (mOp) {
             case OP_ADD: {
                 for (int i = 0; i < N; i++) {
@@ -195,6 +208,11 @@ public class PackageUpdatedTask extends BaseModelUpdateTask {
         // Shortcuts to keep even if the corresponding app was removed
         final IntSet forceKeepShortcuts = new IntSet();
 
+        if (mOp == OP_ADD || mOp == OP_UPDATE || mOp == OP_REMOVE) {
+            // The published shortcuts may have changed along with the package
+            dataModel.deepShortcutIndex.markDirty(mUser, packages);
+        }
+
         // Update shortcut infos
         if (mOp == OP_ADD || flagOp != FlagOp.NO_OP) {
             final ArrayList<WorkspaceItemInfo> updatedWorkspaceItems = new ArrayList<>();
@@ -22,6 +22,7 @@ import android.os.UserHandle;
 import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.LauncherSettings;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
+import com.android.launcher3.popup.PopupShortcutCache;
 import com.android.launcher3.shortcuts.ShortcutKey;
 import com.android.launcher3.shortcuts.ShortcutRequest;
 import com.android.launcher3.util.ItemInfoMatcher;
@@ -54,6 +55,11 @@ public class ShortcutsChangedTask extends BaseModelUpdateTask {
     @Override
     public void execute(LauncherAppState app, BgDataModel dataModel, AllAppsList apps) {
         final Context context = app.getContext();
+        PopupShortcutCache shortcutCache = PopupShortcutCache.INSTANCE.getNoCreate();
+        if (shortcutCache != null) {
+            shortcutCache.invalidate(mPackageName, mUser);
+        }
+
         // Find WorkspaceItemInfo's that have changed on the workspace.
         ArrayList<WorkspaceItemInfo> matchingWorkspaceItems = new ArrayList<>();
 
@@ -113,6 +119,7 @@ public class ShortcutsChangedTask extends BaseModelUpdateTask {
         }
 
         if (mUpdateIdMap) {
+            dataModel.deepShortcutIndex.markDirty(mUser, mPackageName);
             // Update the deep shortcut map if the list of ids has changed for an activity.
             dataModel.updateDeepShortcutCounts(mPackageName, mUser, mShortcuts);
             bindDeepShortcuts(dataModel);
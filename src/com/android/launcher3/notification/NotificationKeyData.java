@@ -56,6 +56,14 @@ public class NotificationKeyData {
                         Notification.EXTRA_PEOPLE_LIST)));
     }
 
+    /**
+     * Returns the count that {@link #fromNotification} would assign to the notification,
+     * without extracting the rest of the key data
+     */
+    public static int getCount(StatusBarNotification sbn) {
+        return Math.max(1, sbn.getNotification().number);
+    }
+
     public static List<String> extractKeysOnly(
             @NonNull List<NotificationKeyData> notificationKeys) {
         List<String> keysOnly = new ArrayList<>(notificationKeys.size());
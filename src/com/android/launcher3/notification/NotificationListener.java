@@ -46,7 +46,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * A {@link NotificationListenerService} that sends updates to its
@@ -148,9 +147,13 @@ public class NotificationListener extends NotificationListenerService {
                 List<StatusBarNotification> activeNotifications = null;
                 if (sIsConnected) {
                     try {
-                        activeNotifications = Arrays.stream(getActiveNotifications())
-                                .filter(this::notificationIsValidForUI)
-                                .collect(Collectors.toList());
+                        StatusBarNotification[] notifications = getActiveNotifications();
+                        activeNotifications = new ArrayList<>(notifications.length);
+                        for (StatusBarNotification sbn : notifications) {
+                            if (notificationIsValidForUI(sbn)) {
+                                activeNotifications.add(sbn);
+                            }
+                        }
                     } catch (SecurityException ex) {
                         Log.e(TAG, "SecurityException: failed to fetch notifications");
                         activeNotifications = new ArrayList<>();
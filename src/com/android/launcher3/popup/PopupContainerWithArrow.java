@@ -324,10 +324,16 @@ public class PopupContainerWithArrow<T extends Context & ActivityContext>
         // All views are added. Animate layout from now on.
         setLayoutTransition(new LayoutTransition());
 
-        // Load the shortcuts on a background thread and update the container as it animates.
-        MODEL_EXECUTOR.getHandler().postAtFrontOfQueue(PopupPopulator.createUpdateRunnable(
-                mActivityContext, originalItemInfo, new Handler(Looper.getMainLooper()),
-                this, mShortcuts, notificationKeys));
+        // Apply the shortcuts right away if they were prefetched, otherwise load them on a
+        // background thread and update the container as it animates.
+        boolean shortcutsApplied = mShortcuts.isEmpty()
+                || PopupPopulator.applyCachedShortcuts(mActivityContext, originalItemInfo, this,
+                        mShortcuts, notificationKeys);
+        if (!shortcutsApplied || !notificationKeys.isEmpty()) {
+            MODEL_EXECUTOR.getHandler().postAtFrontOfQueue(PopupPopulator.createUpdateRunnable(
+                    mActivityContext, originalItemInfo, new Handler(Looper.getMainLooper()),
+                    this, mShortcuts, notificationKeys, !shortcutsApplied));
+        }
     }
 
     private String getTitleForAccessibility() {
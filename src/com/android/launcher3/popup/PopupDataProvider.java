@@ -18,7 +18,11 @@ package com.android.launcher3.popup;
 
 import android.content.ComponentName;
 import android.service.notification.StatusBarNotification;
+import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.Log;
+import android.view.Choreographer;
+import android.view.Choreographer.FrameCallback;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -38,9 +42,11 @@ import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -53,7 +59,7 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
     private static final boolean LOGD = false;
     private static final String TAG = "PopupDataProvider";
 
-    private final Consumer<Predicate<PackageUserKey>> mNotificationDotsChangeListener;
+    private final Consumer<Set<PackageUserKey>> mNotificationDotsChangeListener;
 
     /** Maps launcher activity components to a count of how many shortcuts they have. */
     private HashMap<ComponentKey, Integer> mDeepShortcutMap = new HashMap<>();
@@ -67,37 +73,81 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
 
     private PopupDataChangeListener mChangeListener = PopupDataChangeListener.INSTANCE;
 
-    public PopupDataProvider(Consumer<Predicate<PackageUserKey>> notificationDotsChangeListener) {
+    /**
+     * Packages whose notifications changed since the last frame. Posts and removals are applied
+     * to the model immediately but the UI is only updated once per frame.
+     */
+    private final ArraySet<PackageUserKey> mPendingDotKeys = new ArraySet<>();
+    private final FrameCallback mApplyPendingDotsCallback = frameTimeNanos -> applyPendingDots();
+    private boolean mPendingTrim;
+
+    private int mNotificationEventsReceived;
+    private int mNotificationDotUpdatesApplied;
+
+    public PopupDataProvider(Consumer<Set<PackageUserKey>> notificationDotsChangeListener) {
         mNotificationDotsChangeListener = notificationDotsChangeListener;
     }
 
-    private void updateNotificationDots(Predicate<PackageUserKey> updatedDots) {
+    private void updateNotificationDots(Set<PackageUserKey> updatedDots) {
+        mNotificationDotUpdatesApplied++;
         mNotificationDotsChangeListener.accept(updatedDots);
-        mChangeListener.onNotificationDotsUpdated(updatedDots);
+        mChangeListener.onNotificationDotsUpdated(updatedDots::contains);
     }
 
     @Override
     public void onNotificationPosted(PackageUserKey postedPackageUserKey,
             NotificationKeyData notificationKey) {
+        mNotificationEventsReceived++;
         DotInfo dotInfo = mPackageUserToDotInfos.get(postedPackageUserKey);
         if (dotInfo == null) {
             dotInfo = new DotInfo();
             mPackageUserToDotInfos.put(postedPackageUserKey, dotInfo);
         }
         if (dotInfo.addOrUpdateNotificationKey(notificationKey)) {
-            updateNotificationDots(postedPackageUserKey::equals);
+            scheduleDotUpdate(postedPackageUserKey);
         }
     }
 
     @Override
     public void onNotificationRemoved(PackageUserKey removedPackageUserKey,
             NotificationKeyData notificationKey) {
+        mNotificationEventsReceived++;
         DotInfo oldDotInfo = mPackageUserToDotInfos.get(removedPackageUserKey);
-        if (oldDotInfo != null && oldDotInfo.removeNotificationKey(notificationKey)) {
+        if (oldDotInfo == null) {
+            return;
+        }
+        if (oldDotInfo.removeNotificationKey(notificationKey)) {
             if (oldDotInfo.getNotificationKeys().size() == 0) {
                 mPackageUserToDotInfos.remove(removedPackageUserKey);
             }
-            updateNotificationDots(removedPackageUserKey::equals);
+            scheduleDotUpdate(removedPackageUserKey);
+            mPendingTrim = true;
+        }
+    }
+
+    private void scheduleDotUpdate(PackageUserKey key) {
+        if (mPendingDotKeys.isEmpty()) {
+            Choreographer.getInstance().postFrameCallback(mApplyPendingDotsCallback);
+        }
+        mPendingDotKeys.add(key);
+    }
+
+    /**
+     * Applies all the notification changes received since the last frame in a single UI pass
+     */
+    private void applyPendingDots() {
+        if (mPendingDotKeys.isEmpty()) {
+            return;
+        }
+        Choreographer.getInstance().removeFrameCallback(mApplyPendingDotsCallback);
+        // Every touched package is updated, same as when each event was applied individually.
+        // The dots can depend on the notifications themselves and not only on their count.
+        Set<PackageUserKey> touchedKeys = new ArraySet<>(mPendingDotKeys);
+        mPendingDotKeys.clear();
+
+        updateNotificationDots(touchedKeys);
+        if (mPendingTrim) {
+            mPendingTrim = false;
             trimNotifications(mPackageUserToDotInfos);
         }
     }
@@ -105,38 +155,79 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
     @Override
     public void onNotificationFullRefresh(List<StatusBarNotification> activeNotifications) {
         if (activeNotifications == null) return;
-        // This will contain the PackageUserKeys which have updated dots.
-        HashMap<PackageUserKey, DotInfo> updatedDots = new HashMap<>(mPackageUserToDotInfos);
-        mPackageUserToDotInfos.clear();
+        mNotificationEventsReceived++;
+        applyPendingDots();
+
+        // Index the active notifications by key, so that they can be reconciled against the
+        // existing dots instead of rebuilding them
+        ArrayMap<String, StatusBarNotification> activeByKey =
+                new ArrayMap<>(activeNotifications.size());
+        for (StatusBarNotification notification : activeNotifications) {
+            activeByKey.put(notification.getKey(), notification);
+        }
+
+        // Dot counts before the refresh, for the packages whose notifications changed
+        ArrayMap<PackageUserKey, Integer> prevCounts = new ArrayMap<>();
+        // Active notifications which are already reflected in the dots
+        ArraySet<String> unchangedKeys = new ArraySet<>();
+
+        // Remove notifications which are no longer active
+        Iterator<Map.Entry<PackageUserKey, DotInfo>> it =
+                mPackageUserToDotInfos.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<PackageUserKey, DotInfo> entry = it.next();
+            DotInfo dotInfo = entry.getValue();
+            int prevCount = dotInfo.getNotificationCount();
+            List<NotificationKeyData> keys = dotInfo.getNotificationKeys();
+            for (int i = keys.size() - 1; i >= 0; i--) {
+                NotificationKeyData keyData = keys.get(i);
+                StatusBarNotification notification = activeByKey.get(keyData.notificationKey);
+                if (notification == null) {
+                    dotInfo.removeNotificationKey(keyData);
+                    prevCounts.putIfAbsent(entry.getKey(), prevCount);
+                } else if (keyData.count == NotificationKeyData.getCount(notification)) {
+                    unchangedKeys.add(keyData.notificationKey);
+                }
+            }
+            if (keys.isEmpty()) {
+                it.remove();
+            }
+        }
+
+        // Add new notifications and update the ones whose count changed
         for (StatusBarNotification notification : activeNotifications) {
+            if (unchangedKeys.contains(notification.getKey())) {
+                continue;
+            }
             PackageUserKey packageUserKey = PackageUserKey.fromNotification(notification);
             DotInfo dotInfo = mPackageUserToDotInfos.get(packageUserKey);
+            int prevCount = dotInfo == null ? 0 : dotInfo.getNotificationCount();
             if (dotInfo == null) {
                 dotInfo = new DotInfo();
                 mPackageUserToDotInfos.put(packageUserKey, dotInfo);
             }
-            dotInfo.addOrUpdateNotificationKey(NotificationKeyData.fromNotification(notification));
+            if (dotInfo.addOrUpdateNotificationKey(
+                    NotificationKeyData.fromNotification(notification))) {
+                prevCounts.putIfAbsent(packageUserKey, prevCount);
+            }
         }
 
-        // Add and remove from updatedDots so it contains the PackageUserKeys of updated dots.
-        for (PackageUserKey packageUserKey : mPackageUserToDotInfos.keySet()) {
-            DotInfo prevDot = updatedDots.get(packageUserKey);
-            DotInfo newDot = mPackageUserToDotInfos.get(packageUserKey);
-            if (prevDot == null
-                    || prevDot.getNotificationCount() != newDot.getNotificationCount()) {
-                updatedDots.put(packageUserKey, newDot);
-            } else {
-                // No need to update the dot if it already existed (no visual change).
-                // Note that if the dot was removed entirely, we wouldn't reach this point because
-                // this loop only includes active notifications added above.
-                updatedDots.remove(packageUserKey);
+        if (prevCounts.isEmpty()) {
+            return;
+        }
+        // No need to update the dot if its count did not change (no visual change).
+        ArraySet<PackageUserKey> updatedDots = new ArraySet<>(prevCounts.size());
+        for (int i = prevCounts.size() - 1; i >= 0; i--) {
+            DotInfo dotInfo = mPackageUserToDotInfos.get(prevCounts.keyAt(i));
+            int count = dotInfo == null ? 0 : dotInfo.getNotificationCount();
+            if (count != prevCounts.valueAt(i)) {
+                updatedDots.add(prevCounts.keyAt(i));
             }
         }
-
         if (!updatedDots.isEmpty()) {
-            updateNotificationDots(updatedDots::containsKey);
+            updateNotificationDots(updatedDots);
         }
-        trimNotifications(updatedDots);
+        trimNotifications(mPackageUserToDotInfos);
     }
 
     private void trimNotifications(Map<PackageUserKey, DotInfo> updatedDots) {
@@ -262,6 +353,8 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
     public void dump(String prefix, PrintWriter writer) {
         writer.println(prefix + "PopupDataProvider:");
         writer.println(prefix + "\tmPackageUserToDotInfos:" + mPackageUserToDotInfos);
+        writer.println(prefix + "\tnotificationEventsReceived:" + mNotificationEventsReceived
+                + " notificationDotUpdatesApplied:" + mNotificationDotUpdatesApplied);
     }
 
     public interface PopupDataChangeListener {
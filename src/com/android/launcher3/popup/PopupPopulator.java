@@ -16,26 +16,20 @@
 
 package com.android.launcher3.popup;
 
-import static com.android.launcher3.LauncherSettings.Favorites.CONTAINER_SHORTCUTS;
-
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.pm.ShortcutInfo;
 import android.os.Handler;
-import android.os.UserHandle;
+import android.util.Pair;
 
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
-import com.android.launcher3.LauncherAppState;
-import com.android.launcher3.icons.IconCache;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
 import com.android.launcher3.notification.NotificationInfo;
 import com.android.launcher3.notification.NotificationKeyData;
 import com.android.launcher3.notification.NotificationListener;
 import com.android.launcher3.shortcuts.DeepShortcutView;
-import com.android.launcher3.shortcuts.ShortcutRequest;
 import com.android.launcher3.views.ActivityContext;
 
 import java.util.ArrayList;
@@ -126,17 +120,45 @@ public class PopupPopulator {
         return filteredShortcuts;
     }
 
+    /**
+     * Applies the shortcuts of the provided item if they are already cached, so that the popup is
+     * populated on its first frame.
+     *
+     * @return true if the shortcuts were applied.
+     */
+    public static <T extends Context & ActivityContext> boolean applyCachedShortcuts(
+            final T context, final ItemInfo originalInfo,
+            final PopupContainerWithArrow container,
+            final List<DeepShortcutView> shortcutViews,
+            final List<NotificationKeyData> notificationKeys) {
+        List<Pair<ShortcutInfo, WorkspaceItemInfo>> shortcuts =
+                PopupShortcutCache.INSTANCE.get(context).getCachedShortcuts(
+                        originalInfo, getShortcutIdToDeDupe(notificationKeys));
+        if (shortcuts == null) {
+            return false;
+        }
+        for (int i = 0; i < shortcuts.size() && i < shortcutViews.size(); i++) {
+            Pair<ShortcutInfo, WorkspaceItemInfo> shortcut = shortcuts.get(i);
+            shortcut.second.rank = i;
+            shortcutViews.get(i).applyShortcutInfo(shortcut.second, shortcut.first, container);
+        }
+        return true;
+    }
+
     /**
      * Returns a runnable to update the provided shortcuts and notifications
+     *
+     * @param loadShortcuts false if the shortcuts were already applied and only the notifications
+     *                      need to be loaded.
      */
     public static <T extends Context & ActivityContext> Runnable createUpdateRunnable(
             final T context,
             final ItemInfo originalInfo,
             final Handler uiHandler, final PopupContainerWithArrow container,
             final List<DeepShortcutView> shortcutViews,
-            final List<NotificationKeyData> notificationKeys) {
-        final ComponentName activity = originalInfo.getTargetComponent();
-        final UserHandle user = originalInfo.user;
+            final List<NotificationKeyData> notificationKeys,
+            final boolean loadShortcuts) {
+        final PopupShortcutCache shortcutCache = PopupShortcutCache.INSTANCE.get(context);
         return () -> {
             if (!notificationKeys.isEmpty()) {
                 NotificationListener notificationListener =
@@ -152,23 +174,24 @@ public class PopupPopulator {
                 uiHandler.post(() -> container.applyNotificationInfos(infos));
             }
 
-            List<ShortcutInfo> shortcuts = new ShortcutRequest(context, user)
-                    .withContainer(activity)
-                    .query(ShortcutRequest.PUBLISHED);
-            String shortcutIdToDeDupe = notificationKeys.isEmpty() ? null
-                    : notificationKeys.get(0).shortcutId;
-            shortcuts = PopupPopulator.sortAndFilterShortcuts(shortcuts, shortcutIdToDeDupe);
-            IconCache cache = LauncherAppState.getInstance(context).getIconCache();
+            if (!loadShortcuts) {
+                return;
+            }
+            List<Pair<ShortcutInfo, WorkspaceItemInfo>> shortcuts = shortcutCache.getShortcuts(
+                    originalInfo, getShortcutIdToDeDupe(notificationKeys));
             for (int i = 0; i < shortcuts.size() && i < shortcutViews.size(); i++) {
-                final ShortcutInfo shortcut = shortcuts.get(i);
-                final WorkspaceItemInfo si = new WorkspaceItemInfo(shortcut, context);
-                cache.getUnbadgedShortcutIcon(si, shortcut);
+                final ShortcutInfo shortcut = shortcuts.get(i).first;
+                final WorkspaceItemInfo si = shortcuts.get(i).second;
                 si.rank = i;
-                si.container = CONTAINER_SHORTCUTS;
 
                 final DeepShortcutView view = shortcutViews.get(i);
                 uiHandler.post(() -> view.applyShortcutInfo(si, shortcut, container));
             }
         };
     }
+
+    @Nullable
+    private static String getShortcutIdToDeDupe(List<NotificationKeyData> notificationKeys) {
+        return notificationKeys.isEmpty() ? null : notificationKeys.get(0).shortcutId;
+    }
 }
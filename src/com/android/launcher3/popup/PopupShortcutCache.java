@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.popup;
+
+import static com.android.launcher3.LauncherSettings.Favorites.CONTAINER_SHORTCUTS;
+import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.ShortcutInfo;
+import android.os.UserHandle;
+import android.util.LruCache;
+import android.util.Pair;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.android.launcher3.LauncherAppState;
+import com.android.launcher3.icons.IconCache;
+import com.android.launcher3.model.data.ItemInfo;
+import com.android.launcher3.model.data.WorkspaceItemInfo;
+import com.android.launcher3.shortcuts.ShortcutRequest;
+import com.android.launcher3.util.ComponentKey;
+import com.android.launcher3.util.MainThreadInitializedObject;
+import com.android.launcher3.util.ShortcutUtil;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache of the published shortcuts, along with their icons, shown in the long-press popup of an
+ * activity. This allows the popup to be populated without querying LauncherApps and loading the
+ * shortcut icons every time it is opened.
+ *
+ * Entries are only loaded on the model thread, but can be read from any thread.
+ */
+public class PopupShortcutCache {
+
+    public static final MainThreadInitializedObject<PopupShortcutCache> INSTANCE =
+            new MainThreadInitializedObject<>(PopupShortcutCache::new);
+
+    // Popups are generally opened for a handful of apps at a time
+    private static final int MAX_ENTRIES = 16;
+
+    private final Context mContext;
+    private final LruCache<ComponentKey, Entry> mCache = new LruCache<>(MAX_ENTRIES);
+
+    // Updated from both the main and the model thread
+    private final AtomicInteger mHitCount = new AtomicInteger();
+    private final AtomicInteger mMissCount = new AtomicInteger();
+    private final AtomicInteger mPrefetchCount = new AtomicInteger();
+
+    private PopupShortcutCache(Context context) {
+        mContext = context;
+    }
+
+    /**
+     * Starts loading the shortcuts of the provided item on the model thread, if they are not
+     * already cached.
+     */
+    public void prefetch(ItemInfo info) {
+        ComponentKey key = getKey(info);
+        if (key == null || mCache.get(key) != null) {
+            return;
+        }
+        mPrefetchCount.incrementAndGet();
+        MODEL_EXECUTOR.execute(() -> {
+            if (mCache.get(key) == null) {
+                loadShortcuts(key, null);
+            }
+        });
+    }
+
+    /**
+     * Returns the shortcuts to show for the provided item if they are already cached along with
+     * their icons, or null otherwise.
+     *
+     * @param shortcutIdToRemoveFirst An id that should be filtered out first, if any.
+     * @see PopupPopulator#sortAndFilterShortcuts(List, String)
+     */
+    @Nullable
+    public List<Pair<ShortcutInfo, WorkspaceItemInfo>> getCachedShortcuts(ItemInfo info,
+            @Nullable String shortcutIdToRemoveFirst) {
+        ComponentKey key = getKey(info);
+        Entry entry = key == null ? null : mCache.get(key);
+        if (entry == null) {
+            mMissCount.incrementAndGet();
+            return null;
+        }
+        List<ShortcutInfo> shortcuts = PopupPopulator.sortAndFilterShortcuts(
+                new ArrayList<>(entry.shortcuts), shortcutIdToRemoveFirst);
+        List<Pair<ShortcutInfo, WorkspaceItemInfo>> result = new ArrayList<>(shortcuts.size());
+        for (ShortcutInfo shortcut : shortcuts) {
+            WorkspaceItemInfo si = entry.infos.get(shortcut.getId());
+            if (si == null) {
+                // The icon for this shortcut was never loaded
+                mMissCount.incrementAndGet();
+                return null;
+            }
+            result.add(Pair.create(shortcut, copyOf(si)));
+        }
+        mHitCount.incrementAndGet();
+        return result;
+    }
+
+    /**
+     * Returns the shortcuts to show for the provided item, loading and caching any missing
+     * information.
+     *
+     * @param shortcutIdToRemoveFirst An id that should be filtered out first, if any.
+     * @see PopupPopulator#sortAndFilterShortcuts(List, String)
+     */
+    @WorkerThread
+    public List<Pair<ShortcutInfo, WorkspaceItemInfo>> getShortcuts(ItemInfo info,
+            @Nullable String shortcutIdToRemoveFirst) {
+        ComponentKey key = getKey(info);
+        if (key == null) {
+            return Collections.emptyList();
+        }
+        return loadShortcuts(key, shortcutIdToRemoveFirst);
+    }
+
+    @WorkerThread
+    private List<Pair<ShortcutInfo, WorkspaceItemInfo>> loadShortcuts(ComponentKey key,
+            @Nullable String shortcutIdToRemoveFirst) {
+        Entry entry = mCache.get(key);
+        boolean entryChanged = false;
+        if (entry == null) {
+            List<ShortcutInfo> shortcuts = new ShortcutRequest(mContext, key.user)
+                    .withContainer(key.componentName)
+                    .query(ShortcutRequest.PUBLISHED);
+            entry = new Entry(shortcuts, Collections.emptyMap());
+            entryChanged = true;
+        }
+
+        List<ShortcutInfo> shortcuts = PopupPopulator.sortAndFilterShortcuts(
+                new ArrayList<>(entry.shortcuts), shortcutIdToRemoveFirst);
+        List<Pair<ShortcutInfo, WorkspaceItemInfo>> result = new ArrayList<>(shortcuts.size());
+        Map<String, WorkspaceItemInfo> infos = entry.infos;
+        IconCache cache = LauncherAppState.getInstance(mContext).getIconCache();
+        for (ShortcutInfo shortcut : shortcuts) {
+            WorkspaceItemInfo si = infos.get(shortcut.getId());
+            if (si == null) {
+                si = new WorkspaceItemInfo(shortcut, mContext);
+                cache.getUnbadgedShortcutIcon(si, shortcut);
+                si.container = CONTAINER_SHORTCUTS;
+                if (infos == entry.infos) {
+                    // Entries are read from other threads, never modify them in place
+                    infos = new HashMap<>(entry.infos);
+                }
+                infos.put(shortcut.getId(), si);
+            }
+            result.add(Pair.create(shortcut, copyOf(si)));
+        }
+        if (entryChanged || infos != entry.infos) {
+            mCache.put(key, new Entry(entry.shortcuts, infos));
+        }
+        return result;
+    }
+
+    /**
+     * Removes all the cached shortcuts of the provided package.
+     */
+    public void invalidate(String packageName, UserHandle user) {
+        for (ComponentKey key : mCache.snapshot().keySet()) {
+            if (key.user.equals(user)
+                    && key.componentName.getPackageName().equals(packageName)) {
+                mCache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Removes all the cached shortcuts of the provided user.
+     */
+    public void invalidateUser(UserHandle user) {
+        for (ComponentKey key : mCache.snapshot().keySet()) {
+            if (key.user.equals(user)) {
+                mCache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Removes all the cached shortcuts, for example when the icon shape or theme changed.
+     */
+    public void clear() {
+        mCache.evictAll();
+    }
+
+    public void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "PopupShortcutCache: size=" + mCache.size()
+                + " hits=" + mHitCount.get() + " misses=" + mMissCount.get()
+                + " prefetches=" + mPrefetchCount.get());
+    }
+
+    @Nullable
+    private static ComponentKey getKey(ItemInfo info) {
+        ComponentName cn = info.getTargetComponent();
+        if (cn == null || info.user == null || !ShortcutUtil.supportsDeepShortcuts(info)) {
+            return null;
+        }
+        return new ComponentKey(cn, info.user);
+    }
+
+    private static WorkspaceItemInfo copyOf(WorkspaceItemInfo si) {
+        WorkspaceItemInfo copy = new WorkspaceItemInfo(si);
+        copy.disabledMessage = si.disabledMessage;
+        return copy;
+    }
+
+    /**
+     * All the published shortcuts of an activity and the loaded items, by shortcut id
+     */
+    private static class Entry {
+
+        final List<ShortcutInfo> shortcuts;
+        final Map<String, WorkspaceItemInfo> infos;
+
+        Entry(List<ShortcutInfo> shortcuts, Map<String, WorkspaceItemInfo> infos) {
+            this.shortcuts = Collections.unmodifiableList(shortcuts);
+            this.infos = infos;
+        }
+    }
+}
@@ -35,8 +35,10 @@ import com.android.launcher3.dragndrop.DragOptions;
 import com.android.launcher3.folder.Folder;
 import com.android.launcher3.logging.StatsLogManager.StatsLogger;
 import com.android.launcher3.model.data.ItemInfo;
+import com.android.launcher3.popup.PopupShortcutCache;
 import com.android.launcher3.testing.TestLogging;
 import com.android.launcher3.testing.TestProtocol;
+import com.android.launcher3.views.ActivityContext;
 
 /**
  * Class to handle long-clicks on workspace items and start drag as a result.
@@ -116,6 +118,21 @@ public class ItemLongClickListener {
         return false;
     }
 
+    /**
+     * Starts loading the shortcuts shown in the long-press popup of the provided view on touch
+     * down, so that the popup is fully populated when it appears.
+     */
+    public static void prefetchPopupData(View v) {
+        if (!(v.getTag() instanceof ItemInfo)) return;
+        ActivityContext context = ActivityContext.lookupContextNoThrow(v.getContext());
+        if (!(context instanceof Launcher)) return;
+        Launcher launcher = (Launcher) context;
+        ItemInfo info = (ItemInfo) v.getTag();
+        if (launcher.getPopupDataProvider().getShortcutCountForItem(info) > 0) {
+            PopupShortcutCache.INSTANCE.get(launcher).prefetch(info);
+        }
+    }
+
     public static boolean canStartDrag(Launcher launcher) {
         if (launcher == null) {
             return false;
@@ -16,6 +16,7 @@
 
 package com.android.launcher3.util;
 
+import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.os.UserHandle;
@@ -24,22 +25,28 @@ import android.util.Log;
 import android.util.Xml;
 
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 
 import com.android.launcher3.AutoInstallsLayout;
 import com.android.launcher3.LauncherSettings.Favorites;
+import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.pm.UserCache;
 
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
-import org.xmlpull.v1.XmlSerializer;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -49,6 +56,9 @@ import java.util.function.LongFunction;
 /**
  * Utility class to read/write a list of {@link com.android.launcher3.model.data.ItemInfo} on disk.
  * This class is not thread safe, the caller should ensure proper threading
+ *
+ * Items are stored in a compact binary format with a versioned header. Files written in the
+ * previous XML format are read once and migrated to the binary format.
  */
 public class PersistedItemArray<T extends ItemInfo> {
 
@@ -57,10 +67,22 @@ public class PersistedItemArray<T extends ItemInfo> {
     private static final String TAG_ROOT = "items";
     private static final String TAG_ENTRY = "entry";
 
+    private static final int MAGIC = 0x4C504941; // "LPIA"
+    private static final int FORMAT_VERSION = 1;
+
+    // The intent is the app launch intent for the stored component
+    private static final int INTENT_APP_LAUNCH = 0;
+    // The intent is stored as an intent uri
+    private static final int INTENT_URI = 1;
+    // Sanity limit for the length of stored strings, to avoid large allocations on corrupt files
+    private static final int MAX_STRING_LENGTH = 64 * 1024;
+
     private final String mFileName;
+    private final String mLegacyFileName;
 
     public PersistedItemArray(String fileName) {
-        mFileName = fileName + ".xml";
+        mFileName = fileName + ".bin";
+        mLegacyFileName = fileName + ".xml";
     }
 
     /**
@@ -68,6 +90,19 @@ public class PersistedItemArray<T extends ItemInfo> {
      */
     @WorkerThread
     public void write(Context context, List<T> items) {
+        UserCache userCache = UserCache.INSTANCE.get(context);
+        List<Entry> entries = new ArrayList<>(items.size());
+        for (T item : items) {
+            Intent intent = item.getIntent();
+            if (intent != null) {
+                entries.add(new Entry(item.itemType,
+                        userCache.getSerialNumberForUser(item.user), intent));
+            }
+        }
+        writeEntries(context, entries);
+    }
+
+    private void writeEntries(Context context, List<Entry> entries) {
         AtomicFile file = getFile(context);
         FileOutputStream fos;
         try {
@@ -77,28 +112,25 @@ public class PersistedItemArray<T extends ItemInfo> {
             return;
         }
 
-        UserCache userCache = UserCache.INSTANCE.get(context);
-
         try {
-            XmlSerializer out = Xml.newSerializer();
-            out.setOutput(fos, StandardCharsets.UTF_8.name());
-            out.startDocument(null, true);
-            out.startTag(null, TAG_ROOT);
-            for (T item : items) {
-                Intent intent = item.getIntent();
-                if (intent == null) {
-                    continue;
-                }
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeInt(entry.itemType);
+                out.writeLong(entry.userSerial);
 
-                out.startTag(null, TAG_ENTRY);
-                out.attribute(null, Favorites.ITEM_TYPE, Integer.toString(item.itemType));
-                out.attribute(null, Favorites.PROFILE_ID,
-                        Long.toString(userCache.getSerialNumberForUser(item.user)));
-                out.attribute(null, Favorites.INTENT, intent.toUri(0));
-                out.endTag(null, TAG_ENTRY);
+                ComponentName cn = entry.intent.getComponent();
+                if (cn != null && isAppLaunchIntent(entry.intent, cn)) {
+                    out.writeByte(INTENT_APP_LAUNCH);
+                    writeString(out, cn.flattenToString());
+                } else {
+                    out.writeByte(INTENT_URI);
+                    writeString(out, entry.intent.toUri(0));
+                }
             }
-            out.endTag(null, TAG_ROOT);
-            out.endDocument();
+            out.flush();
         } catch (IOException e) {
             file.failWrite(fos);
             Log.e(TAG, "Unable to persist items in " + mFileName, e);
@@ -106,6 +138,7 @@ public class PersistedItemArray<T extends ItemInfo> {
         }
 
         file.finishWrite(fos);
+        getLegacyFile(context).delete();
     }
 
     /**
@@ -122,8 +155,85 @@ public class PersistedItemArray<T extends ItemInfo> {
      */
     @WorkerThread
     public List<T> read(Context context, ItemFactory<T> factory, LongFunction<UserHandle> userFn) {
-        List<T> result = new ArrayList<>();
-        try (FileInputStream fis = getFile(context).openRead()) {
+        List<Entry> entries = readEntries(context);
+        if (entries == null) {
+            entries = readLegacyEntries(context);
+            if (entries == null) {
+                return Collections.emptyList();
+            }
+            // Migrate to the binary format, so that the xml is not parsed again
+            writeEntries(context, entries);
+        }
+
+        List<T> result = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            try {
+                UserHandle user = userFn.apply(entry.userSerial);
+                if (user != null) {
+                    T item = factory.createInfo(entry.itemType, user, entry.intent);
+                    if (item != null) {
+                        result.add(item);
+                    }
+                }
+            } catch (Exception e) {
+                // Ignore this entry
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the entries stored in the binary format, or null if there is no such file
+     */
+    @Nullable
+    private List<Entry> readEntries(Context context) {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(getFile(context).openRead()))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                Log.e(TAG, "Unknown format for items in " + mFileName);
+                return new ArrayList<>();
+            }
+            int count = in.readInt();
+            List<Entry> entries = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int itemType = in.readInt();
+                long userSerial = in.readLong();
+                int intentType = in.readByte();
+                String intentString = readString(in);
+
+                Intent intent = null;
+                if (intentType == INTENT_APP_LAUNCH) {
+                    ComponentName cn = ComponentName.unflattenFromString(intentString);
+                    if (cn != null) {
+                        intent = AppInfo.makeLaunchIntent(cn);
+                    }
+                } else if (intentType == INTENT_URI) {
+                    try {
+                        intent = Intent.parseUri(intentString, 0);
+                    } catch (URISyntaxException e) {
+                        // Ignore this entry
+                    }
+                }
+                if (intent != null) {
+                    entries.add(new Entry(itemType, userSerial, intent));
+                }
+            }
+            return entries;
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to read items in " + mFileName, e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Returns the entries stored in the legacy xml format, or null if there is no such file
+     */
+    @Nullable
+    private List<Entry> readLegacyEntries(Context context) {
+        List<Entry> result = new ArrayList<>();
+        try (FileInputStream fis = getLegacyFile(context).openRead()) {
             XmlPullParser parser = Xml.newPullParser();
             parser.setInput(new InputStreamReader(fis, StandardCharsets.UTF_8));
 
@@ -139,30 +249,51 @@ public class PersistedItemArray<T extends ItemInfo> {
                 try {
                     int itemType = Integer.parseInt(
                             parser.getAttributeValue(null, Favorites.ITEM_TYPE));
-                    UserHandle user = userFn.apply(Long.parseLong(
-                            parser.getAttributeValue(null, Favorites.PROFILE_ID)));
+                    long userSerial = Long.parseLong(
+                            parser.getAttributeValue(null, Favorites.PROFILE_ID));
                     Intent intent = Intent.parseUri(
                             parser.getAttributeValue(null, Favorites.INTENT), 0);
 
-                    if (user != null && intent != null) {
-                        T item = factory.createInfo(itemType, user, intent);
-                        if (item != null) {
-                            result.add(item);
-                        }
+                    if (intent != null) {
+                        result.add(new Entry(itemType, userSerial, intent));
                     }
                 } catch (Exception e) {
                     // Ignore this entry
                 }
             }
         } catch (FileNotFoundException e) {
-            // Ignore
+            return null;
         } catch (IOException | XmlPullParserException e) {
-            Log.e(TAG, "Unable to read items in " + mFileName, e);
-            return Collections.emptyList();
+            Log.e(TAG, "Unable to read items in " + mLegacyFileName, e);
+            return new ArrayList<>();
         }
         return result;
     }
 
+    /**
+     * Returns true if the intent can be recreated from its component using
+     * {@link AppInfo#makeLaunchIntent(ComponentName)}
+     */
+    private static boolean isAppLaunchIntent(Intent intent, ComponentName cn) {
+        return intent.toUri(0).equals(AppInfo.makeLaunchIntent(cn).toUri(0));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
     /**
      * Returns the underlying file used for persisting data
      */
@@ -170,6 +301,38 @@ public class PersistedItemArray<T extends ItemInfo> {
         return new AtomicFile(context.getFileStreamPath(mFileName));
     }
 
+    /**
+     * Returns the file used for persisting data in the legacy xml format
+     */
+    @VisibleForTesting
+    public AtomicFile getLegacyFile(Context context) {
+        return new AtomicFile(context.getFileStreamPath(mLegacyFileName));
+    }
+
+    /**
+     * Deletes all the persisted data
+     */
+    public void delete(Context context) {
+        getFile(context).delete();
+        getLegacyFile(context).delete();
+    }
+
+    /**
+     * A single persisted item
+     */
+    private static class Entry {
+
+        final int itemType;
+        final long userSerial;
+        final Intent intent;
+
+        Entry(int itemType, long userSerial, Intent intent) {
+            this.itemType = itemType;
+            this.userSerial = userSerial;
+            this.intent = intent;
+        }
+    }
+
     /**
      * Interface to create an ItemInfo during parsing
      */
@@ -16,22 +16,112 @@
 package com.android.launcher3.util;
 
 import android.content.Context;
+import android.os.Handler;
 import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import androidx.annotation.UiThread;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.PrintWriter;
+
 /**
  * Utility class to cache views at an activity level
  */
 public class ViewCache {
 
     protected final SparseArray<CacheEntry> mCache = new SparseArray();
+    // Cache size of each prewarmed layout before it was prewarmed, 0 if it was not cached
+    private final SparseIntArray mSizesBeforePrewarm = new SparseIntArray();
 
     public void setCacheSize(int layoutId, int size) {
         mCache.put(layoutId, new CacheEntry(size));
     }
 
+    /**
+     * Inflates {@param count} views for {@param layoutId} on a background thread and adds them to
+     * the cache as they become available, growing the cache if required. This allows the first
+     * bind to consume ready views instead of inflating on the main thread. The views are sized for
+     * the current configuration, {@link #clearPrewarmed()} must be called once they are no longer
+     * needed or could be stale.
+     */
+    @UiThread
+    public void prewarm(Context context, int layoutId, int count) {
+        Preconditions.assertUIThread();
+        if (count <= 0) {
+            return;
+        }
+        CacheEntry entry = mCache.get(layoutId);
+        if (mSizesBeforePrewarm.indexOfKey(layoutId) < 0) {
+            mSizesBeforePrewarm.put(layoutId, entry == null ? 0 : entry.mMaxSize);
+        }
+        if (entry == null || entry.mMaxSize < count) {
+            CacheEntry newEntry = new CacheEntry(count);
+            if (entry != null) {
+                newEntry.copyFrom(entry);
+            }
+            entry = newEntry;
+            mCache.put(layoutId, entry);
+        }
+        int toInflate = count - entry.mCurrentSize;
+        if (toInflate <= 0) {
+            return;
+        }
+
+        Handler handler = new Handler();
+        // LayoutInflater is not thread safe as it maintains a global variable 'mConstructorArgs'.
+        // Create a different copy to use on the background thread.
+        LayoutInflater inflater = LayoutInflater.from(context).cloneInContext(context);
+        CacheEntry prewarmEntry = entry;
+
+        // Inflate views on a non looper thread, similar to ViewPool, so that views which create
+        // a Handler in their constructor fail early instead of binding to the wrong looper.
+        new Thread(() -> {
+            for (int i = 0; i < toInflate; i++) {
+                View view = inflater.inflate(layoutId, null, false);
+                handler.post(() -> {
+                    // Drop views which arrive after the prewarmed entry was cleared
+                    if (mCache.get(layoutId) == prewarmEntry) {
+                        recycleView(layoutId, view);
+                    }
+                });
+            }
+        }, "ViewCache-prewarm").start();
+    }
+
+    /**
+     * Drops any view created by {@link #prewarm} and restores the cache sizes that were in use
+     * before it was called.
+     */
+    @UiThread
+    public void clearPrewarmed() {
+        for (int i = 0; i < mSizesBeforePrewarm.size(); i++) {
+            int layoutId = mSizesBeforePrewarm.keyAt(i);
+            int size = mSizesBeforePrewarm.valueAt(i);
+            CacheEntry entry = mCache.get(layoutId);
+            if (size == 0) {
+                mCache.remove(layoutId);
+            } else {
+                CacheEntry newEntry = new CacheEntry(size);
+                if (entry != null) {
+                    newEntry.mHitCount = entry.mHitCount;
+                    newEntry.mMissCount = entry.mMissCount;
+                }
+                mCache.put(layoutId, newEntry);
+            }
+        }
+        mSizesBeforePrewarm.clear();
+    }
+
+    @VisibleForTesting
+    public int getCachedViewCount(int layoutId) {
+        CacheEntry entry = mCache.get(layoutId);
+        return entry == null ? 0 : entry.mCurrentSize;
+    }
+
     public <T extends View> T getView(int layoutId, Context context, ViewGroup parent) {
         CacheEntry entry = mCache.get(layoutId);
         if (entry == null) {
@@ -40,12 +130,14 @@ public class ViewCache {
         }
 
         if (entry.mCurrentSize > 0) {
+            entry.mHitCount++;
             entry.mCurrentSize --;
             T result = (T) entry.mViews[entry.mCurrentSize];
             entry.mViews[entry.mCurrentSize] = null;
             return result;
         }
 
+        entry.mMissCount++;
         return (T) LayoutInflater.from(context).inflate(layoutId, parent, false);
     }
 
@@ -57,6 +149,20 @@ public class ViewCache {
         }
     }
 
+    /**
+     * Dumps the hit/miss counts for each cached layout
+     */
+    public void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "ViewCache:");
+        for (int i = 0; i < mCache.size(); i++) {
+            CacheEntry entry = mCache.valueAt(i);
+            writer.println(prefix + "\tlayoutId=0x" + Integer.toHexString(mCache.keyAt(i))
+                    + " size=" + entry.mCurrentSize + "/" + entry.mMaxSize
+                    + " hits=" + entry.mHitCount
+                    + " misses=" + entry.mMissCount);
+        }
+    }
+
     private static class CacheEntry {
 
         final int mMaxSize;
@@ -64,10 +170,20 @@ public class ViewCache {
 
         int mCurrentSize;
 
+        int mHitCount;
+        int mMissCount;
+
         public CacheEntry(int maxSize) {
             mMaxSize = maxSize;
             mViews = new View[maxSize];
             mCurrentSize = 0;
         }
+
+        void copyFrom(CacheEntry other) {
+            mCurrentSize = Math.min(other.mCurrentSize, mMaxSize);
+            System.arraycopy(other.mViews, 0, mViews, 0, mCurrentSize);
+            mHitCount = other.mHitCount;
+            mMissCount = other.mMissCount;
+        }
     }
 }
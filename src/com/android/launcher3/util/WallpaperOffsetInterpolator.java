@@ -14,10 +14,14 @@ import android.os.SystemClock;
 import android.util.Log;
 import android.view.animation.Interpolator;
 
+import androidx.annotation.WorkerThread;
+
 import com.android.launcher3.Utilities;
 import com.android.launcher3.Workspace;
 import com.android.launcher3.anim.Interpolators;
 
+import java.io.PrintWriter;
+
 /**
  * Utility class to handle wallpaper scrolling along with workspace.
  */
@@ -30,6 +34,14 @@ public class WallpaperOffsetInterpolator extends BroadcastReceiver {
     // Don't use all the wallpaper for parallax until you have at least this many pages
     private static final int MIN_PARALLAX_PAGE_SPAN = 4;
 
+    // Offset changes smaller than this move the wallpaper by less than a pixel, so they are
+    // deferred instead of being sent to the WallpaperManager right away
+    private static final float MIN_VISIBLE_OFFSET_DELTA = 1f / 4096;
+    // Delay after which a deferred offset is sent if no other change comes in
+    private static final int DEFERRED_OFFSET_DELAY = 100;
+    // Updates further apart than this are not considered part of the same scroll
+    private static final int SCROLL_UPDATE_GAP = 100;
+
     private final Workspace mWorkspace;
     private final boolean mIsRtl;
     private final Handler mHandler;
@@ -41,6 +53,10 @@ public class WallpaperOffsetInterpolator extends BroadcastReceiver {
     private boolean mLockedToDefaultPage;
     private int mNumScreens;
 
+    // Last offset sent to the handler, to avoid posting identical offsets on every frame
+    private int mLastOffsetNumerator = -1;
+    private int mLastOffsetDenominator = -1;
+
     public WallpaperOffsetInterpolator(Workspace workspace) {
         mWorkspace = workspace;
         mIsRtl = Utilities.isRtl(workspace.getResources());
@@ -160,6 +176,13 @@ public class WallpaperOffsetInterpolator extends BroadcastReceiver {
     public void syncWithScroll() {
         int numScreens = getNumScrollableScreensExcludingEmpty();
         wallpaperOffsetForScroll(mWorkspace.getScrollX(), numScreens, sTempInt);
+        if (numScreens == mNumScreens && sTempInt[0] == mLastOffsetNumerator
+                && sTempInt[1] == mLastOffsetDenominator) {
+            // Nothing changed since the last frame
+            return;
+        }
+        mLastOffsetNumerator = sTempInt[0];
+        mLastOffsetDenominator = sTempInt[1];
         Message msg = Message.obtain(mHandler, MSG_UPDATE_OFFSET, sTempInt[0], sTempInt[1],
                 mWindowToken);
         if (numScreens != mNumScreens) {
@@ -193,6 +216,8 @@ public class WallpaperOffsetInterpolator extends BroadcastReceiver {
 
     public void setWindowToken(IBinder token) {
         mWindowToken = token;
+        // The offset needs to be sent again with the new token
+        mLastOffsetNumerator = mLastOffsetDenominator = -1;
         if (mWindowToken == null && mRegistered) {
             mWorkspace.getContext().unregisterReceiver(this);
             mRegistered = false;
@@ -216,6 +241,14 @@ public class WallpaperOffsetInterpolator extends BroadcastReceiver {
     private static final int MSG_APPLY_OFFSET = 3;
     private static final int MSG_SET_NUM_PARALLAX = 4;
     private static final int MSG_JUMP_TO_FINAL = 5;
+    private static final int MSG_SEND_DEFERRED_OFFSET = 6;
+
+    /**
+     * Dumps the number of offsets sent to the WallpaperManager while scrolling
+     */
+    public void dump(String prefix, PrintWriter writer) {
+        ((OffsetHandler) mHandler).dump(prefix, writer);
+    }
 
     private static class OffsetHandler extends Handler {
 
@@ -230,6 +263,15 @@ public class WallpaperOffsetInterpolator extends BroadcastReceiver {
         private float mFinalOffset;
         private float mOffsetX;
 
+        // Offset last sent to the WallpaperManager
+        private float mSentOffset = Float.NaN;
+
+        // Stats for the offsets sent while scrolling
+        private int mUpdatesReceived;
+        private int mOffsetsSent;
+        private long mLastUpdateTime;
+        private long mScrollingMillis;
+
         public OffsetHandler(Context context) {
             super(UI_HELPER_EXECUTOR.getLooper());
             mInterpolator = Interpolators.DEACCEL_1_5;
@@ -252,6 +294,11 @@ public class WallpaperOffsetInterpolator extends BroadcastReceiver {
                 }
                 case MSG_UPDATE_OFFSET:
                     mFinalOffset = ((float) msg.arg1) / msg.arg2;
+                    trackUpdate();
+                    if (!mAnimating && hasMessages(MSG_UPDATE_OFFSET)) {
+                        // A newer offset is already queued, only apply that one
+                        return;
+                    }
                     // Follow through
                 case MSG_APPLY_OFFSET: {
                     float oldOffset = mCurrentOffset;
@@ -268,10 +315,7 @@ public class WallpaperOffsetInterpolator extends BroadcastReceiver {
                     }
 
                     if (Float.compare(mCurrentOffset, oldOffset) != 0) {
-                        setOffsetSafely(token);
-                        // Force the wallpaper offset steps to be set again, because another app
-                        // might have changed them
-                        mWM.setWallpaperOffsetSteps(mOffsetX, 1.0f);
+                        sendOffset(token, !mAnimating /* deferSmallChanges */);
                     }
                     if (mAnimating) {
                         // If we are animating, keep updating the offset
@@ -293,15 +337,64 @@ public class WallpaperOffsetInterpolator extends BroadcastReceiver {
                     mAnimating = false;
                     return;
                 }
+                case MSG_SEND_DEFERRED_OFFSET: {
+                    sendOffset(token, false /* deferSmallChanges */);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Sends the current offset to the WallpaperManager. If {@param deferSmallChanges} is true
+         * and the change would not be visible, it is only sent after a delay, unless a larger
+         * change comes in before that.
+         */
+        private void sendOffset(IBinder token, boolean deferSmallChanges) {
+            if (Float.compare(mCurrentOffset, mSentOffset) == 0) {
+                removeMessages(MSG_SEND_DEFERRED_OFFSET);
+                return;
+            }
+            if (deferSmallChanges && !Float.isNaN(mSentOffset)
+                    && Math.abs(mCurrentOffset - mSentOffset) < MIN_VISIBLE_OFFSET_DELTA) {
+                if (!hasMessages(MSG_SEND_DEFERRED_OFFSET)) {
+                    sendMessageDelayed(obtainMessage(MSG_SEND_DEFERRED_OFFSET, token),
+                            DEFERRED_OFFSET_DELAY);
+                }
+                return;
             }
+            removeMessages(MSG_SEND_DEFERRED_OFFSET);
+            setOffsetSafely(token);
+            // Force the wallpaper offset steps to be set again, because another app
+            // might have changed them
+            mWM.setWallpaperOffsetSteps(mOffsetX, 1.0f);
         }
 
         private void setOffsetSafely(IBinder token) {
             try {
                 mWM.setWallpaperOffsets(token, mCurrentOffset, 0.5f);
+                mSentOffset = mCurrentOffset;
+                mOffsetsSent++;
             } catch (IllegalArgumentException e) {
                 Log.e(TAG, "Error updating wallpaper offset: " + e);
             }
         }
+
+        @WorkerThread
+        private void trackUpdate() {
+            long now = SystemClock.uptimeMillis();
+            if (mLastUpdateTime > 0 && now - mLastUpdateTime < SCROLL_UPDATE_GAP) {
+                mScrollingMillis += now - mLastUpdateTime;
+            }
+            mLastUpdateTime = now;
+            mUpdatesReceived++;
+        }
+
+        void dump(String prefix, PrintWriter writer) {
+            writer.println(prefix + "WallpaperOffsetInterpolator: updatesReceived="
+                    + mUpdatesReceived + " offsetsSent=" + mOffsetsSent
+                    + " scrollingMs=" + mScrollingMillis
+                    + " offsetsSentPerScrollSecond=" + (mScrollingMillis == 0
+                            ? 0 : mOffsetsSent * 1000 / mScrollingMillis));
+        }
     }
 }
\ No newline at end of file
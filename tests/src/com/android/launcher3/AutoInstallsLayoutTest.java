@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3;
+
+import static com.android.launcher3.util.LauncherModelHelper.TEST_ACTIVITY;
+import static com.android.launcher3.util.LauncherModelHelper.TEST_PACKAGE;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Xml;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.AutoInstallsLayout.LayoutParserCallback;
+import com.android.launcher3.LauncherProvider.DatabaseHelper;
+import com.android.launcher3.LauncherSettings.Favorites;
+import com.android.launcher3.util.IntArray;
+import com.android.launcher3.util.LauncherLayoutBuilder;
+import com.android.launcher3.util.LauncherModelHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.xmlpull.v1.XmlPullParser;
+
+import java.io.StringReader;
+
+/**
+ * Tests for {@link AutoInstallsLayout}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class AutoInstallsLayoutTest {
+
+    private LauncherModelHelper mModelHelper;
+    private Context mContext;
+    private DatabaseHelper mHelper;
+    private SQLiteDatabase mDb;
+
+    private int mLastId;
+
+    @Before
+    public void setUp() {
+        mModelHelper = new LauncherModelHelper();
+        mContext = mModelHelper.sandboxContext;
+        mHelper = new MyDatabaseHelper(mContext);
+        mDb = mHelper.getWritableDatabase();
+        mLastId = 0;
+    }
+
+    @After
+    public void tearDown() {
+        mHelper.close();
+        mModelHelper.destroy();
+    }
+
+    @Test
+    public void loadLayout_insertsAllItems() throws Exception {
+        assertEquals(3, loadLayout());
+        assertEquals(3, getFavoritesCount());
+    }
+
+    @Test
+    public void loadLayout_insertFails_addsNothing() throws Exception {
+        // The last item of the layout will use the same id as this row
+        ContentValues existing = new ContentValues();
+        existing.put(Favorites._ID, 3);
+        existing.put(Favorites.ITEM_TYPE, Favorites.ITEM_TYPE_APPLICATION);
+        mDb.insert(Favorites.TABLE_NAME, null, existing);
+
+        assertEquals(-1, loadLayout());
+        assertEquals(1, getFavoritesCount());
+    }
+
+    private int loadLayout() throws Exception {
+        String layout = new LauncherLayoutBuilder()
+                .atWorkspace(0, 0, 0).putApp(TEST_PACKAGE, TEST_ACTIVITY)
+                .atWorkspace(1, 0, 0).putApp(TEST_PACKAGE, TEST_ACTIVITY)
+                .atWorkspace(2, 0, 0).putApp(TEST_PACKAGE, TEST_ACTIVITY)
+                .build();
+        LayoutParserCallback callback = () -> ++mLastId;
+        AutoInstallsLayout loader = new AutoInstallsLayout(mContext, null, callback,
+                mContext.getResources(), () -> {
+                    XmlPullParser parser = Xml.newPullParser();
+                    try {
+                        parser.setInput(new StringReader(layout));
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                    return parser;
+                }, AutoInstallsLayout.TAG_WORKSPACE);
+        return loader.loadLayout(mDb, new IntArray());
+    }
+
+    private long getFavoritesCount() {
+        return DatabaseUtils.queryNumEntries(mDb, Favorites.TABLE_NAME);
+    }
+
+    private static class MyDatabaseHelper extends DatabaseHelper {
+
+        MyDatabaseHelper(Context context) {
+            super(context, null, false);
+        }
+
+        @Override
+        public long getDefaultUserSerial() {
+            return 0;
+        }
+
+        @Override
+        protected void handleOneTimeDataUpgrade(SQLiteDatabase db) { }
+
+        protected void onEmptyDbCreated() { }
+    }
+}
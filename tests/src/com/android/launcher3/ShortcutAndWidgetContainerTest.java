@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Process;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.model.data.WorkspaceItemInfo;
+import com.android.launcher3.util.ActivityContextWrapper;
+import com.android.launcher3.util.PackageUserKey;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for the package index of {@link ShortcutAndWidgetContainer}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class ShortcutAndWidgetContainerTest {
+
+    private static final String PACKAGE_1 = "com.example.app1";
+    private static final String PACKAGE_2 = "com.example.app2";
+
+    private Context mContext;
+    private ShortcutAndWidgetContainer mContainer;
+
+    @Before
+    public void setUp() {
+        mContext = new ActivityContextWrapper(getApplicationContext());
+        mContainer = new ShortcutAndWidgetContainer(mContext, CellLayout.HOTSEAT);
+    }
+
+    @Test
+    public void mapOverItemsForPackages_visitsOnlyUpdatedPackage() {
+        BubbleTextView icon1 = addIcon(PACKAGE_1);
+        addIcon(PACKAGE_2);
+
+        assertEquals(Collections.singletonList(icon1), getViewsToUpdate(PACKAGE_1));
+    }
+
+    @Test
+    public void mapOverItemsForPackages_afterRebindingAttachedIcon_usesNewPackage() {
+        BubbleTextView icon = addIcon(PACKAGE_1);
+
+        // Same as a predicted icon being bound to a different app while attached
+        icon.applyFromWorkspaceItem(createItem(PACKAGE_2));
+
+        assertEquals(Collections.singletonList(icon), getViewsToUpdate(PACKAGE_2));
+        assertTrue(getViewsToUpdate(PACKAGE_1).isEmpty());
+    }
+
+    @Test
+    public void mapOverItemsForPackages_skipsChildrenWithoutItemInfo() {
+        View qsb = new View(mContext);
+        qsb.setTag("qsb");
+        mContainer.addView(qsb, new CellLayout.LayoutParams(1, 0, 1, 1));
+        BubbleTextView icon = addIcon(PACKAGE_1);
+
+        assertEquals(Collections.singletonList(icon), getViewsToUpdate(PACKAGE_1));
+    }
+
+    private BubbleTextView addIcon(String packageName) {
+        BubbleTextView icon = new BubbleTextView(mContext);
+        icon.applyFromWorkspaceItem(createItem(packageName));
+        mContainer.addView(icon, new CellLayout.LayoutParams(0, 0, 1, 1));
+        return icon;
+    }
+
+    /**
+     * Returns the views that Workspace would update for a dot change of the provided package
+     */
+    private List<View> getViewsToUpdate(String packageName) {
+        PackageUserKey updated = new PackageUserKey(packageName, Process.myUserHandle());
+        List<View> result = new ArrayList<>();
+        mContainer.mapOverItemsForPackages(Collections.singleton(updated), (info, v) -> {
+            if (updated.equals(PackageUserKey.fromItemInfo(info))) {
+                result.add(v);
+            }
+            return false;
+        });
+        return result;
+    }
+
+    private static WorkspaceItemInfo createItem(String packageName) {
+        Intent intent = AppInfo.makeLaunchIntent(
+                new ComponentName(packageName, packageName + ".Main"));
+        WorkspaceItemInfo info = new WorkspaceItemInfo();
+        info.intent = intent;
+        info.user = Process.myUserHandle();
+        info.title = packageName;
+        return info;
+    }
+}
@@ -23,6 +23,7 @@ import static org.junit.Assert.assertTrue;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.os.Process;
 import android.os.UserHandle;
 
 import androidx.test.ext.junit.runners.AndroidJUnit4;
@@ -31,12 +32,14 @@ import androidx.test.filters.SmallTest;
 import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
 import com.android.launcher3.util.Executors;
+import com.android.launcher3.util.IntSparseArrayMap;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.util.ArrayList;
+import java.util.List;
 
 @SmallTest
 @RunWith(AndroidJUnit4.class)
@@ -81,4 +84,38 @@ public final class FolderNameProviderTest {
         assertTrue(nameInfos.hasSuggestions());
         assertTrue(nameInfos.hasPrimary());
     }
+
+    @Test
+    public void getSuggestedFolderName_manyAppsAndFolders() throws Exception {
+        int appCount = 300;
+        int folderCount = 40;
+        UserHandle user = Process.myUserHandle();
+        List<AppInfo> apps = new ArrayList<>();
+        for (int i = 0; i < appCount; i++) {
+            ComponentName cn = new ComponentName("com.example.app" + i, "Activity" + i);
+            apps.add(new AppInfo(cn, "App " + i, user, new Intent().setComponent(cn)));
+        }
+
+        List<FolderNameInfos> results = Executors.MODEL_EXECUTOR.submit(() -> {
+            FolderNameProvider provider = FolderNameProvider.newInstance(
+                    mContext, apps, new IntSparseArrayMap<>());
+            List<FolderNameInfos> nameInfos = new ArrayList<>();
+            for (int i = 0; i < folderCount; i++) {
+                // Each folder holds two icons of the same app
+                AppInfo app = apps.get((i * 7) % appCount);
+                ArrayList<WorkspaceItemInfo> items = new ArrayList<>();
+                items.add(new WorkspaceItemInfo(app));
+                items.add(new WorkspaceItemInfo(app));
+                FolderNameInfos info = new FolderNameInfos();
+                provider.getSuggestedFolderName(mContext, items, info);
+                nameInfos.add(info);
+            }
+            return nameInfos;
+        }).get();
+
+        for (int i = 0; i < folderCount; i++) {
+            assertEquals("App " + ((i * 7) % appCount), results.get(i).getLabels()[0]);
+            assertTrue(results.get(i).hasPrimary());
+        }
+    }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.content.ComponentName;
+import android.content.pm.LauncherApps;
+import android.content.pm.ShortcutInfo;
+import android.os.Process;
+import android.os.UserHandle;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.util.ComponentKey;
+import com.android.launcher3.util.LauncherModelHelper;
+import com.android.launcher3.util.LauncherModelHelper.SanboxModelContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests for {@link DeepShortcutIndex}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class DeepShortcutIndexTest {
+
+    private static final String PACKAGE_1 = "com.example.app1";
+    private static final String PACKAGE_2 = "com.example.app2";
+    private static final String PACKAGE_3 = "com.example.app3";
+
+    private LauncherModelHelper mModelHelper;
+    private SanboxModelContext mContext;
+    private LauncherApps mLauncherApps;
+    private UserHandle mUser;
+    private Set<String> mPackages;
+
+    @Before
+    public void setUp() {
+        mModelHelper = new LauncherModelHelper();
+        mContext = mModelHelper.sandboxContext;
+        mLauncherApps = mContext.spyService(LauncherApps.class);
+        // Two shortcuts for the first package, one for the second and none for the third
+        doReturn(Arrays.asList(
+                createShortcut(PACKAGE_1, "s1"),
+                createShortcut(PACKAGE_1, "s2"),
+                createShortcut(PACKAGE_2, "s1")))
+                .when(mLauncherApps).getShortcuts(any(), any());
+        mUser = Process.myUserHandle();
+        mPackages = new HashSet<>(Arrays.asList(PACKAGE_1, PACKAGE_2, PACKAGE_3));
+    }
+
+    @After
+    public void tearDown() {
+        mModelHelper.destroy();
+    }
+
+    @Test
+    public void loadShortcutCounts_reusesIndexedPackages() {
+        DeepShortcutIndex index = new DeepShortcutIndex();
+        Map<ComponentKey, Integer> counts = new HashMap<>();
+
+        assertTrue(load(index, counts));
+        assertEquals(2, getCount(counts, PACKAGE_1));
+        assertEquals(1, getCount(counts, PACKAGE_2));
+        assertEquals(2, counts.size());
+
+        counts.clear();
+        assertFalse(load(index, counts));
+        assertEquals(2, getCount(counts, PACKAGE_1));
+        assertEquals(1, getCount(counts, PACKAGE_2));
+        assertEquals(2, counts.size());
+
+        verify(mLauncherApps, times(1)).getShortcuts(any(), any());
+    }
+
+    @Test
+    public void loadShortcutCounts_queriesDirtyPackages() {
+        DeepShortcutIndex index = new DeepShortcutIndex();
+        load(index, new HashMap<>());
+
+        // The first package removed one of its shortcuts, only that package is queried again
+        doReturn(Collections.singletonList(createShortcut(PACKAGE_1, "s1")))
+                .when(mLauncherApps).getShortcuts(any(), any());
+        index.markDirty(mUser, PACKAGE_1);
+
+        Map<ComponentKey, Integer> counts = new HashMap<>();
+        assertFalse(load(index, counts));
+        assertEquals(1, getCount(counts, PACKAGE_1));
+        assertEquals(1, getCount(counts, PACKAGE_2));
+        assertEquals(2, counts.size());
+        verify(mLauncherApps, times(2)).getShortcuts(any(), any());
+    }
+
+    @Test
+    public void loadShortcutCounts_dropsUninstalledPackages() {
+        DeepShortcutIndex index = new DeepShortcutIndex();
+        load(index, new HashMap<>());
+
+        mPackages.remove(PACKAGE_1);
+        Map<ComponentKey, Integer> counts = new HashMap<>();
+        assertFalse(load(index, counts));
+        assertEquals(1, getCount(counts, PACKAGE_2));
+        assertEquals(1, counts.size());
+        verify(mLauncherApps, times(1)).getShortcuts(any(), any());
+    }
+
+    private boolean load(DeepShortcutIndex index, Map<ComponentKey, Integer> outCounts) {
+        return index.loadShortcutCounts(mContext, mUser, mPackages, outCounts,
+                new ArrayList<ShortcutInfo>());
+    }
+
+    private int getCount(Map<ComponentKey, Integer> counts, String packageName) {
+        Integer count = counts.get(new ComponentKey(getActivity(packageName), mUser));
+        return count == null ? 0 : count;
+    }
+
+    private static ComponentName getActivity(String packageName) {
+        return new ComponentName(packageName, packageName + ".Main");
+    }
+
+    private static ShortcutInfo createShortcut(String packageName, String id) {
+        ShortcutInfo info = spy(new ShortcutInfo.Builder(getApplicationContext(), id)
+                .setActivity(getActivity(packageName))
+                .build());
+        doReturn(packageName).when(info).getPackage();
+        doReturn(true).when(info).isDynamic();
+        return info;
+    }
+}
@@ -104,6 +104,35 @@ public class DefaultLayoutProviderTest {
         assertEquals("CustomFolder", info.title.toString());
     }
 
+    @Test
+    public void testCustomProfileLoaded_with_single_item_folder() throws Exception {
+        writeLayoutAndLoad(new LauncherLayoutBuilder().atHotseat(0).putFolder("CustomFolder")
+                .addApp(TEST_PACKAGE, TEST_ACTIVITY)
+                .build());
+
+        // Verify that the item replaced the folder
+        assertEquals(1, mModelHelper.getBgDataModel().workspaceItems.size());
+        ItemInfo info = mModelHelper.getBgDataModel().workspaceItems.get(0);
+        assertEquals(LauncherSettings.Favorites.CONTAINER_HOTSEAT, info.container);
+        assertEquals(LauncherSettings.Favorites.ITEM_TYPE_APPLICATION, info.itemType);
+        assertEquals(0, info.screenId);
+    }
+
+    @Test
+    public void testCustomProfileLoaded_with_multiple_pages() throws Exception {
+        LauncherLayoutBuilder builder = new LauncherLayoutBuilder();
+        for (int screen = 0; screen < 5; screen++) {
+            for (int x = 0; x < 4; x++) {
+                builder.atWorkspace(x, 0, screen).putApp(TEST_PACKAGE, TEST_ACTIVITY);
+            }
+        }
+        writeLayoutAndLoad(builder);
+
+        // Verify all pages were added
+        assertEquals(20, mModelHelper.getBgDataModel().workspaceItems.size());
+        assertEquals(5, mModelHelper.getBgDataModel().collectWorkspaceScreens().size());
+    }
+
     @Test
     public void testCustomProfileLoaded_with_widget() throws Exception {
         String pendingAppPkg = "com.test.pending";
@@ -275,4 +275,52 @@ public class GridSizeMigrationTaskV2Test {
 
         c.close();
     }
+
+    @Test
+    public void migrateLargeWorkspaceToSmallerGrid() {
+        int srcColumns = 5;
+        int srcRows = 8;
+        int srcScreens = 5;
+        int id = 1;
+        for (int screen = 0; screen < srcScreens; screen++) {
+            for (int x = 0; x < srcColumns; x++) {
+                for (int y = 0; y < srcRows; y++) {
+                    String packageName = "com.android.launcher3.largegrid" + id;
+                    mValidPackages.add(packageName);
+                    mModelHelper.addItem(APP_ICON, screen, DESKTOP, x, y, packageName, id,
+                            TMP_CONTENT_URI);
+                    id++;
+                }
+            }
+        }
+        int totalItems = id - 1;
+
+        mIdp.numDatabaseHotseatIcons = 4;
+        mIdp.numColumns = 4;
+        mIdp.numRows = 5;
+        GridSizeMigrationTaskV2.DbReader srcReader = new GridSizeMigrationTaskV2.DbReader(mDb,
+                LauncherSettings.Favorites.TMP_TABLE, mContext, mValidPackages);
+        GridSizeMigrationTaskV2.DbReader destReader = new GridSizeMigrationTaskV2.DbReader(mDb,
+                LauncherSettings.Favorites.TABLE_NAME, mContext, mValidPackages);
+        GridSizeMigrationTaskV2 task = new GridSizeMigrationTaskV2(mContext, mDb, srcReader,
+                destReader, mIdp.numDatabaseHotseatIcons, new Point(mIdp.numColumns, mIdp.numRows));
+        task.migrate(mIdp);
+
+        Cursor c = mContext.getContentResolver().query(LauncherSettings.Favorites.CONTENT_URI,
+                new String[]{LauncherSettings.Favorites.SCREEN, LauncherSettings.Favorites.CELLX,
+                        LauncherSettings.Favorites.CELLY},
+                "container=" + CONTAINER_DESKTOP, null, null, null);
+        assertEquals(totalItems, c.getCount());
+        HashSet<String> occupiedCells = new HashSet<>();
+        while (c.moveToNext()) {
+            int screen = c.getInt(0);
+            int cellX = c.getInt(1);
+            int cellY = c.getInt(2);
+            assertTrue(cellX < mIdp.numColumns && cellY < mIdp.numRows);
+            // First row of the first screen is reserved for smartspace
+            assertTrue(screen != 0 || cellY > 0);
+            assertTrue(occupiedCells.add(screen + "," + cellX + "," + cellY));
+        }
+        c.close();
+    }
 }
@@ -40,6 +40,7 @@ import static com.android.launcher3.util.LauncherModelHelper.TEST_ACTIVITY;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNotSame;
 import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
 
@@ -55,6 +56,7 @@ import androidx.test.filters.SmallTest;
 import com.android.launcher3.InvariantDeviceProfile;
 import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.LauncherSettings.Favorites;
+import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
 import com.android.launcher3.util.Executors;
@@ -151,6 +153,60 @@ public class LoaderCursorTest {
         assertTrue(PackageManagerHelper.isLauncherAppTarget(info.getIntent()));
     }
 
+    @Test
+    public void parseIntent_returnsNewInstances() {
+        String uri = launchIntentUri("com.example.app");
+        initCursor(ITEM_TYPE_APPLICATION, "");
+        mCursor.newRow().add(_ID, 2).add(PROFILE_ID, 0).add(INTENT, uri);
+        mCursor.newRow().add(_ID, 3).add(PROFILE_ID, 0).add(INTENT, uri);
+
+        assertTrue(mLoaderCursor.moveToNext());
+        assertNull(mLoaderCursor.parseIntent());
+
+        assertTrue(mLoaderCursor.moveToNext());
+        Intent first = mLoaderCursor.parseIntent();
+        first.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+
+        assertTrue(mLoaderCursor.moveToNext());
+        Intent second = mLoaderCursor.parseIntent();
+        assertNotSame(first, second);
+        assertEquals(uri, second.toUri(0));
+    }
+
+    @Test
+    public void parseIntent_largerThanCache_reusesIntentsOnNextLoad() {
+        // More rows than the default cache size, but within its maximum size
+        int rowCount = 1000;
+        String[] uris = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            uris[i] = launchIntentUri("com.example.app" + i);
+        }
+        LoaderCursor.clearIntentCache();
+
+        LoaderCursor c = newFavoritesCursor(uris);
+        while (c.moveToNext()) {
+            assertNotNull(c.parseIntent());
+        }
+
+        int hitCount = LoaderCursor.getIntentCacheHitCount();
+        c = newFavoritesCursor(uris);
+        while (c.moveToNext()) {
+            assertNotNull(c.parseIntent());
+        }
+        assertEquals(rowCount, LoaderCursor.getIntentCacheHitCount() - hitCount);
+    }
+
+    @Test
+    public void newCursor_largerThanMaxCacheSize_capsCacheSize() {
+        String[] uris = new String[LoaderCursor.MAX_INTENT_CACHE_SIZE + 1];
+        for (int i = 0; i < uris.length; i++) {
+            uris[i] = launchIntentUri("com.example.app" + i);
+        }
+
+        newFavoritesCursor(uris);
+        assertEquals(LoaderCursor.MAX_INTENT_CACHE_SIZE, LoaderCursor.getIntentCacheMaxSize());
+    }
+
     @Test
     public void loadSimpleShortcut() {
         initCursor(ITEM_TYPE_SHORTCUT, "my-shortcut");
@@ -226,4 +282,24 @@ public class LoaderCursorTest {
         info.screenId = screenId;
         return info;
     }
+
+    private LoaderCursor newFavoritesCursor(String[] uris) {
+        MatrixCursor cursor = new MatrixCursor(mCursor.getColumnNames());
+        for (int i = 0; i < uris.length; i++) {
+            cursor.newRow()
+                    .add(_ID, i)
+                    .add(PROFILE_ID, 0)
+                    .add(ITEM_TYPE, ITEM_TYPE_APPLICATION)
+                    .add(CONTAINER, CONTAINER_DESKTOP)
+                    .add(INTENT, uris[i]);
+        }
+        UserManagerState ums = new UserManagerState();
+        ums.allUsers.put(0, Process.myUserHandle());
+        return new LoaderCursor(cursor, Favorites.CONTENT_URI, mApp, ums);
+    }
+
+    private static String launchIntentUri(String packageName) {
+        return AppInfo.makeLaunchIntent(new ComponentName(packageName, packageName + ".Main"))
+                .toUri(0);
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.provider;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.android.launcher3.LauncherProvider;
+import com.android.launcher3.LauncherProvider.DatabaseHelper;
+import com.android.launcher3.LauncherSettings.Favorites;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests that the common queries on the favorites table use its indexes instead of a table scan
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class FavoritesQueryPlanTest {
+
+    private DatabaseHelper mHelper;
+    private SQLiteDatabase mDb;
+
+    @Before
+    public void setup() {
+        mHelper = new MyDatabaseHelper();
+        mDb = mHelper.getWritableDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        mHelper.close();
+    }
+
+    @Test
+    public void testQueryByContainer_usesIndex() {
+        // Folder contents and ModelWriter folder deletion
+        assertNoTableScan("SELECT _id FROM favorites WHERE container = 5");
+        assertNoTableScan("DELETE FROM favorites WHERE container = 5");
+        // GridSizeMigrationTaskV2 hotseat and workspace entries
+        assertNoTableScan("SELECT _id, itemType, intent, screen FROM favorites"
+                + " WHERE container = " + Favorites.CONTAINER_HOTSEAT);
+    }
+
+    @Test
+    public void testQueryScreensOfContainer_usesIndex() {
+        // RestoreDbTask.removeScreenIdGaps
+        assertNoTableScan("SELECT DISTINCT screen FROM favorites WHERE container = "
+                + Favorites.CONTAINER_DESKTOP + " ORDER BY screen");
+        assertNoTableScan("SELECT _id FROM favorites WHERE container = "
+                + Favorites.CONTAINER_DESKTOP + " AND screen = 1");
+    }
+
+    @Test
+    public void testQueryByProfileId_usesIndex() {
+        // RestoreDbTask profile migration
+        assertNoTableScan("UPDATE favorites SET profileId = 2 WHERE profileId = 1");
+        assertNoTableScan("SELECT profileId FROM favorites WHERE profileId != 1"
+                + " GROUP BY profileId");
+    }
+
+    @Test
+    public void testUpgradeFromV30_addsIndexes() {
+        mDb.execSQL("DROP INDEX " + Favorites.INDEX_CONTAINER_SCREEN);
+        mDb.execSQL("DROP INDEX " + Favorites.INDEX_PROFILE_ID);
+        assertFalse(indexExists(Favorites.INDEX_CONTAINER_SCREEN));
+
+        mHelper.onUpgrade(mDb, 30, LauncherProvider.SCHEMA_VERSION);
+
+        assertTrue(indexExists(Favorites.INDEX_CONTAINER_SCREEN));
+        assertTrue(indexExists(Favorites.INDEX_PROFILE_ID));
+    }
+
+    private void assertNoTableScan(String sql) {
+        List<String> plan = new ArrayList<>();
+        try (Cursor c = mDb.rawQuery("EXPLAIN QUERY PLAN " + sql, null)) {
+            int detailIndex = c.getColumnIndexOrThrow("detail");
+            while (c.moveToNext()) {
+                plan.add(c.getString(detailIndex));
+            }
+        }
+        for (String step : plan) {
+            // A scan is only acceptable if it does not need to read the table rows
+            boolean usesIndex = step.startsWith("SEARCH") || step.contains("COVERING INDEX");
+            assertTrue("Table scan in " + sql + ": " + plan,
+                    usesIndex || !step.contains(Favorites.TABLE_NAME));
+        }
+    }
+
+    private boolean indexExists(String indexName) {
+        try (Cursor c = mDb.rawQuery("SELECT name FROM sqlite_master WHERE type = 'index'"
+                + " AND name = ?", new String[] {indexName})) {
+            return c.getCount() > 0;
+        }
+    }
+
+    private static class MyDatabaseHelper extends DatabaseHelper {
+
+        MyDatabaseHelper() {
+            super(InstrumentationRegistry.getInstrumentation().getTargetContext(), null, false);
+        }
+
+        @Override
+        public long getDefaultUserSerial() {
+            return 0;
+        }
+
+        @Override
+        protected void handleOneTimeDataUpgrade(SQLiteDatabase db) { }
+
+        protected void onEmptyDbCreated() { }
+    }
+}
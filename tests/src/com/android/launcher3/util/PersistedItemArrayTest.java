@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static com.android.launcher3.LauncherSettings.Favorites.ITEM_TYPE_APPLICATION;
+import static com.android.launcher3.LauncherSettings.Favorites.ITEM_TYPE_DEEP_SHORTCUT;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Process;
+import android.os.UserHandle;
+import android.util.AtomicFile;
+import android.util.Xml;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.LauncherSettings.Favorites;
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.model.data.ItemInfo;
+import com.android.launcher3.model.data.WorkspaceItemInfo;
+import com.android.launcher3.pm.UserCache;
+import com.android.launcher3.shortcuts.ShortcutKey;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.xmlpull.v1.XmlSerializer;
+
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for {@link PersistedItemArray}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class PersistedItemArrayTest {
+
+    private static final String STORAGE_NAME = "persisted_item_array_test";
+    private static final String DEEP_SHORTCUT_CATEGORY = "com.android.launcher3.DEEP_SHORTCUT";
+
+    private LauncherModelHelper mModelHelper;
+    private Context mContext;
+    private PersistedItemArray<ItemInfo> mStorage;
+
+    @Before
+    public void setUp() {
+        mModelHelper = new LauncherModelHelper();
+        mContext = mModelHelper.sandboxContext;
+        mStorage = new PersistedItemArray<>(STORAGE_NAME);
+        mStorage.delete(mContext);
+    }
+
+    @After
+    public void tearDown() {
+        mStorage.delete(mContext);
+        mModelHelper.destroy();
+    }
+
+    @Test
+    public void writeAndRead_preservesItems() {
+        List<ItemInfo> items = createItems(3);
+        Intent custom = new Intent(Intent.ACTION_VIEW).setPackage("com.example.custom")
+                .putExtra("key", "value");
+        items.add(createItem(ITEM_TYPE_APPLICATION, custom));
+
+        mStorage.write(mContext, items);
+        List<ItemInfo> result = read();
+
+        assertEquals(items.size(), result.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(items.get(i).itemType, result.get(i).itemType);
+            assertEquals(items.get(i).getIntent().toUri(0), result.get(i).getIntent().toUri(0));
+        }
+    }
+
+    @Test
+    public void read_migratesLegacyXml() throws Exception {
+        List<ItemInfo> items = createItems(4);
+        writeLegacyXml(items);
+
+        List<ItemInfo> result = read();
+
+        assertEquals(items.size(), result.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(items.get(i).getIntent().toUri(0), result.get(i).getIntent().toUri(0));
+        }
+        assertTrue(mStorage.getFile(mContext).exists());
+        assertFalse(mStorage.getLegacyFile(mContext).exists());
+        assertEquals(items.size(), read().size());
+    }
+
+    private List<ItemInfo> read() {
+        UserHandle user = Process.myUserHandle();
+        return mStorage.read(mContext, (itemType, u, intent) -> createItem(itemType, intent),
+                serial -> user);
+    }
+
+    private List<ItemInfo> createItems(int count) {
+        List<ItemInfo> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String pkg = "com.example.app" + i;
+            if (i % 2 == 0) {
+                items.add(createItem(ITEM_TYPE_APPLICATION,
+                        AppInfo.makeLaunchIntent(new ComponentName(pkg, pkg + ".Main"))));
+            } else {
+                items.add(createItem(ITEM_TYPE_DEEP_SHORTCUT, new Intent(Intent.ACTION_MAIN)
+                        .addCategory(DEEP_SHORTCUT_CATEGORY)
+                        .setComponent(new ComponentName(pkg, pkg + ".Main"))
+                        .setPackage(pkg)
+                        .putExtra(ShortcutKey.EXTRA_SHORTCUT_ID, "shortcut" + i)));
+            }
+        }
+        return items;
+    }
+
+    private static ItemInfo createItem(int itemType, Intent intent) {
+        WorkspaceItemInfo info = new WorkspaceItemInfo();
+        info.itemType = itemType;
+        info.user = Process.myUserHandle();
+        info.intent = intent;
+        return info;
+    }
+
+    private void writeLegacyXml(List<ItemInfo> items) throws Exception {
+        long serial = UserCache.INSTANCE.get(mContext).getSerialNumberForUser(
+                Process.myUserHandle());
+        AtomicFile file = mStorage.getLegacyFile(mContext);
+        FileOutputStream fos = file.startWrite();
+        XmlSerializer out = Xml.newSerializer();
+        out.setOutput(fos, StandardCharsets.UTF_8.name());
+        out.startDocument(null, true);
+        out.startTag(null, "items");
+        for (ItemInfo item : items) {
+            out.startTag(null, "entry");
+            out.attribute(null, Favorites.ITEM_TYPE, Integer.toString(item.itemType));
+            out.attribute(null, Favorites.PROFILE_ID, Long.toString(serial));
+            out.attribute(null, Favorites.INTENT, item.getIntent().toUri(0));
+            out.endTag(null, "entry");
+        }
+        out.endTag(null, "items");
+        out.endDocument();
+        file.finishWrite(fos);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.LayoutInflater;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.Launcher;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for {@link ViewCache}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class ViewCacheTest {
+
+    private static final int PREWARM_COUNT = 3;
+    private static final long TIMEOUT_MS = 5000;
+
+    private Context mContext;
+    private ViewCache mViewCache;
+
+    @Before
+    public void setUp() {
+        mContext = new ActivityContextWrapper(getApplicationContext());
+        mViewCache = new ViewCache();
+    }
+
+    @Test
+    public void prewarmedLayouts_inflateOnNonLooperThread() throws Exception {
+        for (int layoutId : Launcher.PREWARMED_LAYOUTS) {
+            // Same as the prewarm thread, which does not have a looper
+            LayoutInflater inflater = LayoutInflater.from(mContext).cloneInContext(mContext);
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            Thread thread = new Thread(() -> {
+                try {
+                    inflater.inflate(layoutId, null, false);
+                } catch (Throwable t) {
+                    error.set(t);
+                }
+            });
+            thread.start();
+            thread.join();
+
+            assertNull("Failed to inflate 0x" + Integer.toHexString(layoutId), error.get());
+        }
+    }
+
+    @Test
+    public void prewarm_fillsCacheForPrewarmedLayouts() throws Exception {
+        for (int layoutId : Launcher.PREWARMED_LAYOUTS) {
+            MAIN_EXECUTOR.submit(() -> mViewCache.prewarm(mContext, layoutId, PREWARM_COUNT))
+                    .get();
+
+            assertEquals(PREWARM_COUNT, waitForCachedViews(layoutId, PREWARM_COUNT));
+        }
+    }
+
+    @Test
+    public void clearPrewarmed_dropsPrewarmedViews() throws Exception {
+        for (int layoutId : Launcher.PREWARMED_LAYOUTS) {
+            MAIN_EXECUTOR.submit(() -> mViewCache.prewarm(mContext, layoutId, PREWARM_COUNT))
+                    .get();
+            waitForCachedViews(layoutId, PREWARM_COUNT);
+
+            MAIN_EXECUTOR.submit(mViewCache::clearPrewarmed).get();
+
+            assertEquals(0, getCachedViewCount(layoutId));
+        }
+    }
+
+    private int waitForCachedViews(int layoutId, int count) throws Exception {
+        long endTime = SystemClock.uptimeMillis() + TIMEOUT_MS;
+        int cached = getCachedViewCount(layoutId);
+        while (cached < count && SystemClock.uptimeMillis() < endTime) {
+            SystemClock.sleep(50);
+            cached = getCachedViewCount(layoutId);
+        }
+        return cached;
+    }
+
+    private int getCachedViewCount(int layoutId) throws Exception {
+        return MAIN_EXECUTOR.submit(() -> mViewCache.getCachedViewCount(layoutId)).get();
+    }
+}